@@ -0,0 +1,121 @@
+package org.erp.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.service.BusinessKeyAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schema pieces that {@code ddl-auto=update} cannot create on an existing database.
+ * Runs before the other startup runners; each step is idempotent and only logs on failure.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatabaseSchemaInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LogManager.getLogger(DatabaseSchemaInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        ensureTimesheetUniqueKey();
+        ensureBusinessKeySequences();
+        ensureInventoryNameTrigramIndex();
+        ensureOpenShortageIndex();
+    }
+
+    /**
+     * The bulk timesheet upsert relies on ON CONFLICT (project_id, employee_id, work_date).
+     * Hibernate skips the unique constraint when older duplicate rows exist. Duplicates are payroll
+     * data, so they are never removed here: the index is only created once a reviewed migration
+     * has resolved them.
+     */
+    private void ensureTimesheetUniqueKey() {
+        try {
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('uk_timesheets_project_employee_date') IS NOT NULL", Boolean.class);
+            if (Boolean.TRUE.equals(exists)) {
+                return;
+            }
+
+            Long duplicates = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM timesheets GROUP BY project_id, employee_id, work_date " +
+                    "HAVING COUNT(*) > 1) d", Long.class);
+            if (duplicates != null && duplicates > 0) {
+                logger.error("Not creating the timesheets unique key: {} (project_id, employee_id, work_date) cells " +
+                        "have more than one row. Resolve them with a reviewed migration; bulk timesheet saves " +
+                        "will fail until then", duplicates);
+                return;
+            }
+
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_timesheets_project_employee_date " +
+                    "ON timesheets (project_id, employee_id, work_date)");
+        } catch (Exception e) {
+            logger.error("Could not create the timesheets unique key; bulk timesheet saves will fail", e);
+        }
+    }
+
+    /**
+     * Creates the hi/lo sequences behind {@link BusinessKeyAllocator} and moves each one past the
+     * numbers already taken by existing rows, so the first keys it hands out cannot clash with them.
+     */
+    private void ensureBusinessKeySequences() {
+        for (BusinessKeyAllocator.KeyFamily family : BusinessKeyAllocator.KeyFamily.values()) {
+            String sequence = family.getSequenceName();
+            try {
+                jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence +
+                        " START WITH 1 INCREMENT BY " + BusinessKeyAllocator.BLOCK_SIZE);
+                if (family.getMaxUsedNumberSql() == null) {
+                    continue;
+                }
+
+                Long maxUsed = jdbcTemplate.queryForObject(family.getMaxUsedNumberSql(), Long.class);
+                Long nextStart = jdbcTemplate.queryForObject("SELECT CASE WHEN is_called THEN last_value + " +
+                        BusinessKeyAllocator.BLOCK_SIZE + " ELSE last_value END FROM " + sequence, Long.class);
+                if (maxUsed != null && nextStart != null && maxUsed >= nextStart) {
+                    jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', ?, false)", Long.class, maxUsed + 1);
+                    logger.info("Moved {} to {} past existing keys", sequence, maxUsed + 1);
+                }
+            } catch (Exception e) {
+                logger.error("Could not prepare sequence {}; new {} keys cannot be generated", sequence, family, e);
+            }
+        }
+    }
+
+    /**
+     * Substring search on inventory names needs a pg_trgm GIN index; without the extension the
+     * search still works but scans the table.
+     */
+    private void ensureInventoryNameTrigramIndex() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_inventory_name_trgm " +
+                    "ON inventory USING gin (lower(name) gin_trgm_ops)");
+        } catch (Exception e) {
+            logger.error("Could not create the inventory name trigram index; name search will scan the table", e);
+        }
+    }
+
+    /**
+     * Open shortages are a small slice of project_inventory_items; partial indexes let the shortage
+     * sweep and the per-item backfill queue find them without scanning every allocation. JPA annotations
+     * cannot declare partial indexes.
+     */
+    private void ensureOpenShortageIndex() {
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_project_inventory_items_open_shortage " +
+                    "ON project_inventory_items (id) WHERE shortage_quantity > 0 AND po_created IS NOT TRUE");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_project_inventory_items_open_shortage_fifo " +
+                    "ON project_inventory_items (inventory_id, id) WHERE shortage_quantity > 0 AND po_created IS NOT TRUE");
+        } catch (Exception e) {
+            logger.error("Could not create the open shortage indexes; shortage sweeps and backfills will scan the table", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.erp.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * project_daily_rollups no longer carries cash flow totals; the cash-flow figures are read from cash_flow.
+ * {@code ddl-auto=update} never drops columns, and the old ones are NOT NULL without a default, so they
+ * have to go before the EntityManagerFactory is built or the first rollup insert would fail.
+ */
+@Component
+public class ProjectDailyRollupCashColumnRemover implements InitializingBean {
+
+    private static final Logger logger = LogManager.getLogger(ProjectDailyRollupCashColumnRemover.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        Boolean columnsExist = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema() " +
+                "AND table_name = 'project_daily_rollups' AND column_name = 'cash_inflow')", Boolean.class);
+        if (!Boolean.TRUE.equals(columnsExist)) {
+            return;
+        }
+
+        jdbcTemplate.execute("ALTER TABLE project_daily_rollups DROP COLUMN IF EXISTS cash_inflow, " +
+                "DROP COLUMN IF EXISTS cash_outflow, DROP COLUMN IF EXISTS cash_flow_count");
+        logger.info("Dropped the cash flow columns from project_daily_rollups");
+    }
+
+    /**
+     * Makes the EntityManagerFactory wait for the columns to be dropped.
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependency() {
+            super("projectDailyRollupCashColumnRemover");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.erp.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.PurchaseOrderItem;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purchase order item ids moved from IDENTITY to a pooled sequence. On a database that already has
+ * items, the sequence has to start above them: a pooled block ending at {@code v} hands out the ids
+ * after {@code v - allocationSize}. This runs before the EntityManagerFactory is built (and so before
+ * the web server takes requests), because {@code ddl-auto=update} would otherwise create the sequence
+ * at 1 and the first orders would reuse existing ids.
+ */
+@Component
+public class PurchaseOrderItemSequenceInitializer implements InitializingBean {
+
+    private static final Logger logger = LogManager.getLogger(PurchaseOrderItemSequenceInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS purchase_order_items_seq START WITH 1 INCREMENT BY " +
+                PurchaseOrderItem.ID_ALLOCATION_SIZE);
+        Boolean tableExists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('purchase_order_items') IS NOT NULL", Boolean.class);
+        if (!Boolean.TRUE.equals(tableExists)) {
+            return;
+        }
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM purchase_order_items", Long.class);
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM purchase_order_items_seq", Long.class);
+        if (maxId != null && lastValue != null && maxId >= lastValue) {
+            jdbcTemplate.queryForObject("SELECT setval('purchase_order_items_seq', ?)", Long.class, maxId);
+            logger.info("Moved purchase_order_items_seq past existing item id {}", maxId);
+        }
+    }
+
+    /**
+     * Makes the EntityManagerFactory wait for the sequence above.
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependency() {
+            super("purchaseOrderItemSequenceInitializer");
+        }
+    }
+}
@@ -2,14 +2,22 @@ package org.erp.controller;
 
 import org.erp.entity.Inventory;
 import org.erp.entity.InventoryRequest;
+import org.erp.service.InventoryRequestDecisionService;
+import org.erp.service.InventorySearchService;
 import org.erp.service.InventoryService;
+import org.erp.service.StockLedgerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -19,6 +27,15 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
     
+    @Autowired
+    private InventorySearchService inventorySearchService;
+    
+    @Autowired
+    private InventoryRequestDecisionService inventoryRequestDecisionService;
+    
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    
     @GetMapping
     @PreAuthorize("hasRole('PROJECTMANAGER') or hasRole('SUPERADMIN')")
     public ResponseEntity<List<Inventory>> getAllInventory() {
@@ -30,6 +47,82 @@ public class InventoryController {
         }
     }
     
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('PROJECTMANAGER') or hasRole('SUPERADMIN')")
+    public ResponseEntity<Map<String, Object>> searchInventory(
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "contains") String nameMatch,
+            @RequestParam(required = false) String supplier,
+            @RequestParam(required = false) String expiresFrom,
+            @RequestParam(required = false) String expiresTo,
+            @RequestParam(required = false) Integer minQuantity,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            Map<String, Object> result = inventorySearchService.search(
+                    name,
+                    InventorySearchService.NameMatch.fromParameter(nameMatch),
+                    supplier,
+                    expiresFrom != null ? LocalDate.parse(expiresFrom) : null,
+                    expiresTo != null ? LocalDate.parse(expiresTo) : null,
+                    minQuantity,
+                    InventorySearchService.SortOrder.fromParameter(sort),
+                    cursor,
+                    limit);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/expiring")
+    @PreAuthorize("hasRole('PROJECTMANAGER') or hasRole('SUPERADMIN')")
+    public ResponseEntity<Map<String, Object>> getExpiringInventory(
+            @RequestParam(defaultValue = "30") Integer withinDays,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            if (withinDays < 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "withinDays cannot be negative"));
+            }
+            // Same (expiry_date, id) index walk the expiry scanner uses
+            LocalDate today = LocalDate.now();
+            Map<String, Object> result = inventorySearchService.search(null, InventorySearchService.NameMatch.CONTAINS,
+                    null, today, today.plusDays(withinDays), null, InventorySearchService.SortOrder.EXPIRY, cursor, limit);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Stock on hand at {@code at} (an ISO date-time, or a date meaning the end of that day), for one
+     * inventory item by id or for every item that had stock. Deleted items can still be queried by id.
+     */
+    @GetMapping("/stock-at")
+    @PreAuthorize("hasRole('PROJECTMANAGER') or hasRole('SUPERADMIN')")
+    public ResponseEntity<Map<String, Object>> getStockAt(
+            @RequestParam String at,
+            @RequestParam(required = false) Long itemId) {
+        try {
+            LocalDateTime pointInTime = at.length() == 10
+                    ? LocalDate.parse(at).atTime(LocalTime.MAX)
+                    : LocalDateTime.parse(at);
+            Map<String, Object> result = new HashMap<>();
+            result.put("at", pointInTime);
+            if (itemId != null) {
+                result.put("itemId", itemId);
+                result.put("quantity", stockLedgerService.quantityAt(itemId, pointInTime));
+            } else {
+                result.put("quantities", stockLedgerService.stockAt(pointInTime));
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{inventoryId}")
     @PreAuthorize("hasRole('PROJECTMANAGER') or hasRole('SUPERADMIN')")
     public ResponseEntity<Inventory> getInventoryByInventoryId(@PathVariable String inventoryId) {
@@ -127,4 +220,50 @@ public class InventoryController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+    
+    @PostMapping("/requests/bulk-decision")
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<?> decideRequests(@RequestBody BulkDecisionRequest request, Authentication auth) {
+        try {
+            if (request.getDecision() == null) {
+                throw new IllegalArgumentException("Decision is required");
+            }
+            InventoryRequestDecisionService.Decision decision =
+                    InventoryRequestDecisionService.Decision.fromParameter(request.getDecision());
+            return ResponseEntity.ok(inventoryRequestDecisionService.decide(
+                    request.getRequestIds(), decision, request.getReason(), auth.getName()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    public static class BulkDecisionRequest {
+        private List<Long> requestIds;
+        private String decision;
+        private String reason;
+        
+        public List<Long> getRequestIds() {
+            return requestIds;
+        }
+        
+        public void setRequestIds(List<Long> requestIds) {
+            this.requestIds = requestIds;
+        }
+        
+        public String getDecision() {
+            return decision;
+        }
+        
+        public void setDecision(String decision) {
+            this.decision = decision;
+        }
+        
+        public String getReason() {
+            return reason;
+        }
+        
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+}
@@ -2,14 +2,20 @@ package org.erp.controller;
 
 import org.erp.entity.*;
 import org.erp.service.ProjectService;
+import org.erp.service.TimesheetBatchWriter;
+import org.erp.service.TimesheetImportService;
 import org.erp.repository.EmployeeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -23,6 +29,9 @@ public class ProjectController {
     @Autowired
     private EmployeeRepository employeeRepository;
     
+    @Autowired
+    private TimesheetImportService timesheetImportService;
+    
     @PostMapping
     public ResponseEntity<Project> createProject(@RequestBody Project project) {
         try {
@@ -141,12 +150,60 @@ public class ProjectController {
         }
     }
     
+    @PostMapping("/{projectId}/timesheet/bulk")
+    public ResponseEntity<Map<String, Object>> saveTimesheetGrid(
+            @PathVariable Long projectId,
+            @RequestBody TimesheetGridRequest request) {
+        try {
+            List<TimesheetBatchWriter.TimesheetEntry> entries = new ArrayList<>();
+            if (request.getRows() != null) {
+                for (TimesheetGridRow row : request.getRows()) {
+                    if (row.getHours() == null) {
+                        continue;
+                    }
+                    for (Map.Entry<LocalDate, BigDecimal> cell : row.getHours().entrySet()) {
+                        entries.add(new TimesheetBatchWriter.TimesheetEntry(row.getEmployeeId(), cell.getKey(), cell.getValue()));
+                    }
+                }
+            }
+            
+            Map<String, Object> result = projectService.saveTimesheetGrid(projectId, entries);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/timesheet/import", consumes = {"multipart/form-data"})
+    public ResponseEntity<Map<String, Object>> importTimesheets(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Long projectId) {
+        try {
+            Map<String, Object> result = timesheetImportService.importCsv(file.getInputStream(), projectId);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{projectId}/timesheet")
     public ResponseEntity<List<Timesheet>> getProjectTimesheets(@PathVariable Long projectId) {
         List<Timesheet> timesheets = projectService.getTimesheetsByProject(projectId);
         return ResponseEntity.ok(timesheets);
     }
     
+    @GetMapping("/{projectId}/timesheet/matrix")
+    public ResponseEntity<Map<String, Object>> getTimesheetMatrix(
+            @PathVariable Long projectId,
+            @RequestParam String month) {
+        try {
+            Map<String, Object> matrix = projectService.getTimesheetMatrix(projectId, YearMonth.parse(month));
+            return ResponseEntity.ok(matrix);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{projectId}/timesheet/range")
     public ResponseEntity<List<Timesheet>> getProjectTimesheetsByDateRange(
             @PathVariable Long projectId,
@@ -194,6 +251,20 @@ public class ProjectController {
         }
     }
     
+    @GetMapping("/{projectId}/stats/range")
+    public ResponseEntity<List<DailyProjectStats>> getDailyProjectStatsForRange(
+            @PathVariable Long projectId,
+            @RequestParam String startDate,
+            @RequestParam String endDate) {
+        try {
+            List<DailyProjectStats> stats = projectService.getDailyStatsForRange(projectId,
+                    LocalDate.parse(startDate), LocalDate.parse(endDate));
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{projectId}/timesheet/editable/{date}")
     public ResponseEntity<Boolean> isTimesheetEditable(
             @PathVariable Long projectId, 
@@ -207,6 +278,23 @@ public class ProjectController {
         }
     }
     
+    public static class TimesheetGridRequest {
+        private List<TimesheetGridRow> rows;
+        
+        public List<TimesheetGridRow> getRows() { return rows; }
+        public void setRows(List<TimesheetGridRow> rows) { this.rows = rows; }
+    }
+    
+    public static class TimesheetGridRow {
+        private Long employeeId;
+        private Map<LocalDate, BigDecimal> hours;
+        
+        public Long getEmployeeId() { return employeeId; }
+        public void setEmployeeId(Long employeeId) { this.employeeId = employeeId; }
+        public Map<LocalDate, BigDecimal> getHours() { return hours; }
+        public void setHours(Map<LocalDate, BigDecimal> hours) { this.hours = hours; }
+    }
+    
     public static class DailyProjectStats {
         private LocalDate date;
         private Long employeeCount;
@@ -1,18 +1,17 @@
 package org.erp.controller;
 
-import org.erp.entity.Inventory;
-import org.erp.entity.Project;
 import org.erp.entity.ProjectInventoryItem;
 import org.erp.entity.PurchaseOrder;
-import org.erp.repository.InventoryRepository;
 import org.erp.repository.ProjectInventoryItemRepository;
-import org.erp.repository.ProjectRepository;
+import org.erp.service.InventoryAllocationService;
 import org.erp.service.PurchaseOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,10 +25,7 @@ public class ProjectInventoryController {
     private ProjectInventoryItemRepository projectInventoryItemRepository;
     
     @Autowired
-    private ProjectRepository projectRepository;
-    
-    @Autowired
-    private InventoryRepository inventoryRepository;
+    private InventoryAllocationService inventoryAllocationService;
     
     @Autowired
     private PurchaseOrderService purchaseOrderService;
@@ -48,62 +44,54 @@ public class ProjectInventoryController {
             Long inventoryId = Long.valueOf(request.get("inventoryId").toString());
             Integer requiredQuantity = Integer.valueOf(request.get("requiredQuantity").toString());
             
-            Optional<Project> projectOpt = projectRepository.findById(projectId);
-            Optional<Inventory> inventoryOpt = inventoryRepository.findById(inventoryId);
-            
-            if (projectOpt.isEmpty() || inventoryOpt.isEmpty()) {
+            // Allocated quantity and shortage are computed against the stock at update time
+            Optional<ProjectInventoryItem> savedItem =
+                    inventoryAllocationService.allocate(projectId, inventoryId, requiredQuantity);
+            if (savedItem.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
             
-            Project project = projectOpt.get();
-            Inventory inventory = inventoryOpt.get();
-            
-            // Calculate allocated quantity and shortage
-            Integer availableQuantity = inventory.getQuantity();
-            Integer allocatedQuantity = Math.min(requiredQuantity, availableQuantity);
-            Integer shortageQuantity = Math.max(0, requiredQuantity - availableQuantity);
-            
-            BigDecimal unitPrice = inventory.getPerQuantityPrice();
-            BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(allocatedQuantity));
-            
-            ProjectInventoryItem projectInventoryItem = new ProjectInventoryItem(
-                project, inventory, requiredQuantity, allocatedQuantity, 
-                shortageQuantity, unitPrice, totalPrice
-            );
-            
-            ProjectInventoryItem savedItem = projectInventoryItemRepository.save(projectInventoryItem);
-            
-            // Update inventory quantity (reduce by allocated amount)
-            inventory.setQuantity(availableQuantity - allocatedQuantity);
-            inventoryRepository.save(inventory);
-            
-            return ResponseEntity.ok(savedItem);
+            return ResponseEntity.ok(savedItem.get());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> allocateBillOfMaterials(
+            @PathVariable Long projectId,
+            @RequestBody BillOfMaterialsRequest request) {
+        try {
+            List<InventoryAllocationService.AllocationLine> lines = new ArrayList<>();
+            if (request.getLines() != null) {
+                for (BillOfMaterialsLine line : request.getLines()) {
+                    lines.add(new InventoryAllocationService.AllocationLine(line.getInventoryId(), line.getRequiredQuantity()));
+                }
+            }
+            
+            Optional<Map<String, Object>> result = inventoryAllocationService.allocateAll(projectId, lines);
+            if (result.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(result.get());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @DeleteMapping("/{itemId}")
     public ResponseEntity<Void> removeInventoryItemFromProject(
             @PathVariable Long projectId,
             @PathVariable Long itemId) {
         try {
-            Optional<ProjectInventoryItem> itemOpt = projectInventoryItemRepository.findById(itemId);
-            
-            if (itemOpt.isEmpty()) {
+            // Returns the allocated quantity back to inventory
+            if (!inventoryAllocationService.release(itemId)) {
                 return ResponseEntity.notFound().build();
             }
             
-            ProjectInventoryItem item = itemOpt.get();
-            
-            // Return the allocated quantity back to inventory
-            Inventory inventory = item.getInventory();
-            inventory.setQuantity(inventory.getQuantity() + item.getAllocatedQuantity());
-            inventoryRepository.save(inventory);
-            
-            projectInventoryItemRepository.deleteById(itemId);
-            
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -113,9 +101,9 @@ public class ProjectInventoryController {
     @GetMapping("/expense")
     public ResponseEntity<Map<String, Object>> getProjectInventoryExpense(@PathVariable Long projectId) {
         try {
-            Double totalExpense = projectInventoryItemRepository.getTotalInventoryExpenseByProjectId(projectId);
+            BigDecimal totalExpense = projectInventoryItemRepository.getTotalInventoryExpenseByProjectId(projectId);
             if (totalExpense == null) {
-                totalExpense = 0.0;
+                totalExpense = BigDecimal.ZERO;
             }
             
             return ResponseEntity.ok(Map.of("totalExpense", totalExpense));
@@ -148,4 +136,21 @@ public class ProjectInventoryController {
             ));
         }
     }
-}
\ No newline at end of file
+    
+    public static class BillOfMaterialsRequest {
+        private List<BillOfMaterialsLine> lines;
+        
+        public List<BillOfMaterialsLine> getLines() { return lines; }
+        public void setLines(List<BillOfMaterialsLine> lines) { this.lines = lines; }
+    }
+    
+    public static class BillOfMaterialsLine {
+        private Long inventoryId;
+        private Integer requiredQuantity;
+        
+        public Long getInventoryId() { return inventoryId; }
+        public void setInventoryId(Long inventoryId) { this.inventoryId = inventoryId; }
+        public Integer getRequiredQuantity() { return requiredQuantity; }
+        public void setRequiredQuantity(Integer requiredQuantity) { this.requiredQuantity = requiredQuantity; }
+    }
+}
@@ -63,6 +63,17 @@ public class PurchaseOrderController {
         }
     }
     
+    @PostMapping("/shortage-sweep")
+    @PreAuthorize("hasRole('PROJECTMANAGER') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> sweepShortages() {
+        try {
+            String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
+            return ResponseEntity.ok(purchaseOrderService.createPurchaseOrdersFromShortages(currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping
     @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('PROJECTMANAGER')")
     public ResponseEntity<Page<PurchaseOrder>> getAllPurchaseOrders(
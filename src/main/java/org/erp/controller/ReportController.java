@@ -1,13 +1,26 @@
 package org.erp.controller;
 
+import org.erp.service.CashFlowPivotService;
+import org.erp.service.ProjectCostCounterService;
+import org.erp.service.ProjectRollupService;
+import org.erp.service.ReportCacheService;
+import org.erp.service.ReportExportService;
 import org.erp.service.ReportService;
+import org.erp.service.TimesheetSnapshotService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -17,14 +30,37 @@ public class ReportController {
 
     @Autowired
     private ReportService reportService;
+    
+    @Autowired
+    private ProjectRollupService projectRollupService;
+    
+    @Autowired
+    private ReportExportService reportExportService;
+    
+    @Autowired
+    private ReportCacheService reportCacheService;
+    
+    @Autowired
+    private TimesheetSnapshotService timesheetSnapshotService;
+    
+    @Autowired
+    private CashFlowPivotService cashFlowPivotService;
+    
+    @Autowired
+    private ProjectCostCounterService projectCostCounterService;
 
     @GetMapping("/cashflow")
-    public ResponseEntity<Map<String, Object>> getCashFlowReport(
+    public ResponseEntity<byte[]> getCashFlowReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "true") boolean includeTransactions,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        Map<String, Object> report = reportService.getCashFlowReport(startDate, endDate);
-        return ResponseEntity.ok(report);
+        ReportCacheService.CachedReport report = reportCacheService.getOrCompute(
+                ReportCacheService.ReportType.CASH_FLOW, startDate, endDate,
+                includeTransactions ? "transactions" : "totals",
+                () -> reportService.getCashFlowReport(startDate, endDate, includeTransactions));
+        return cachedReportResponse(report, ifNoneMatch);
     }
 
     @GetMapping("/employee-hours")
@@ -37,11 +73,146 @@ public class ReportController {
     }
 
     @GetMapping("/project-breakdown")
-    public ResponseEntity<Map<String, Object>> getProjectBreakdownReport(
+    public ResponseEntity<byte[]> getProjectBreakdownReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        Map<String, Object> report = reportService.getProjectBreakdownReport(startDate, endDate);
-        return ResponseEntity.ok(report);
+        ReportCacheService.CachedReport report = reportCacheService.getOrCompute(
+                ReportCacheService.ReportType.PROJECT_BREAKDOWN, startDate, endDate, null,
+                () -> reportService.getProjectBreakdownReport(startDate, endDate));
+        return cachedReportResponse(report, ifNoneMatch);
+    }
+    
+    private ResponseEntity<byte[]> cachedReportResponse(ReportCacheService.CachedReport report, String ifNoneMatch) {
+        if (report.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(report.getETag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(report.getETag())
+                .body(report.getBody());
+    }
+    
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups() {
+        try {
+            int rows = projectRollupService.rebuild();
+            return ResponseEntity.ok(Map.of("rollupRows", rows));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/cashflow/export")
+    public ResponseEntity<StreamingResponseBody> exportCashFlowReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        try {
+            ReportExportService.ExportFormat exportFormat = ReportExportService.ExportFormat.fromParameter(format);
+            StreamingResponseBody body = outputStream ->
+                    reportExportService.writeCashFlowExport(startDate, endDate, exportFormat, outputStream);
+            return exportResponse("cashflow", startDate, endDate, exportFormat, body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/employee-hours/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployeeHoursReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        try {
+            ReportExportService.ExportFormat exportFormat = ReportExportService.ExportFormat.fromParameter(format);
+            StreamingResponseBody body = outputStream ->
+                    reportExportService.writeEmployeeHoursExport(startDate, endDate, exportFormat, outputStream);
+            return exportResponse("employee-hours", startDate, endDate, exportFormat, body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/pivot")
+    public ResponseEntity<Map<String, Object>> getCashFlowPivot(
+            @RequestParam List<String> dimensions,
+            @RequestParam(defaultValue = "rollup") String subtotals,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long projectId) {
+        try {
+            List<CashFlowPivotService.Dimension> groupBy = new ArrayList<>();
+            for (String value : dimensions) {
+                groupBy.add(CashFlowPivotService.Dimension.fromParameter(value));
+            }
+            
+            Map<String, Object> pivot = cashFlowPivotService.pivot(groupBy,
+                    CashFlowPivotService.Subtotals.fromParameter(subtotals), startDate, endDate, projectId);
+            return ResponseEntity.ok(pivot);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/timesheet-pivot")
+    public ResponseEntity<Map<String, Object>> getTimesheetPivot(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) Long projectId,
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            List<TimesheetSnapshotService.Dimension> dimensions = new ArrayList<>();
+            if (groupBy != null) {
+                for (String value : groupBy) {
+                    dimensions.add(TimesheetSnapshotService.Dimension.fromParameter(value));
+                }
+            }
+            
+            long started = System.nanoTime();
+            List<Map<String, Object>> rows = timesheetSnapshotService.pivot(dimensions, projectId, employeeId,
+                    startDate, endDate);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("rows", rows);
+            response.put("snapshotRows", timesheetSnapshotService.size());
+            response.put("elapsedMicros", (System.nanoTime() - started) / 1000);
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/timesheet-pivot/reload")
+    public ResponseEntity<Map<String, Object>> reloadTimesheetSnapshot() {
+        try {
+            return ResponseEntity.ok(Map.of("snapshotRows", timesheetSnapshotService.reload()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/cost-counters/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileCostCounters() {
+        try {
+            return ResponseEntity.ok(projectCostCounterService.reconcile());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    private ResponseEntity<StreamingResponseBody> exportResponse(String reportName, LocalDate startDate, LocalDate endDate,
+                                                                 ReportExportService.ExportFormat format,
+                                                                 StreamingResponseBody body) {
+        String fileName = reportName + "-" + startDate + "-" + endDate + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
 }
\ No newline at end of file
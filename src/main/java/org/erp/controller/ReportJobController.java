@@ -0,0 +1,103 @@
+package org.erp.controller;
+
+import org.erp.entity.ReportJob;
+import org.erp.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @PostMapping
+    public ResponseEntity<?> submitJob(@RequestBody ReportJobRequest request, Authentication authentication) {
+        try {
+            ReportJob job = reportJobService.submitJob(request.getReportType(), request.getStartDate(),
+                    request.getEndDate(), authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/reports/jobs/" + job.getId())
+                    .body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ReportJob>> getMyJobs(Authentication authentication) {
+        return ResponseEntity.ok(reportJobService.getJobsForUser(authentication.getName()));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable Long jobId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(reportJobService.getJob(jobId, authentication.getName()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> downloadResult(@PathVariable Long jobId, Authentication authentication) {
+        ReportJob job;
+        try {
+            job = reportJobService.getJob(jobId, authentication.getName());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+
+        if (job.getStatus() == ReportJob.JobStatus.QUEUED || job.getStatus() == ReportJob.JobStatus.RUNNING) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("status", job.getStatus(), "error", "Report is not ready yet"));
+        }
+
+        Path resultPath = reportJobService.getResultPath(job);
+        if (resultPath == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", job.getStatus() == ReportJob.JobStatus.FAILED
+                            ? "Report failed: " + job.getErrorMessage() : "Report result has expired"));
+        }
+
+        Resource resource = new FileSystemResource(resultPath);
+        String fileName = job.getReportType().name().toLowerCase().replace('_', '-')
+                + "-" + job.getStartDate() + "-" + job.getEndDate() + ".json";
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(resource);
+    }
+
+    public static class ReportJobRequest {
+        private ReportJob.JobReportType reportType;
+        private LocalDate startDate;
+        private LocalDate endDate;
+
+        public ReportJob.JobReportType getReportType() { return reportType; }
+        public void setReportType(ReportJob.JobReportType reportType) { this.reportType = reportType; }
+        public LocalDate getStartDate() { return startDate; }
+        public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    }
+}
@@ -5,7 +5,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "inventory")
+@Table(name = "inventory",
+       indexes = {
+           @Index(name = "idx_inventory_name_id", columnList = "name, id"),
+           @Index(name = "idx_inventory_expiry_id", columnList = "expiry_date, id"),
+           @Index(name = "idx_inventory_supplier_name", columnList = "supplier_name")
+       })
 public class Inventory {
     
     @Id
@@ -0,0 +1,94 @@
+package org.erp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * How far the expiry scanner has walked for one alert window. Items up to
+ * ({@code scannedExpiryDate}, {@code scannedInventoryId}) in expiry order, and items with an id up to
+ * {@code lastInventoryId}, have already been alerted for this window.
+ */
+@Entity
+@Table(name = "inventory_expiry_watermarks",
+       uniqueConstraints = @UniqueConstraint(name = "uk_inventory_expiry_watermarks_window",
+                                             columnNames = {"window_days"}))
+public class InventoryExpiryWatermark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "window_days", nullable = false)
+    private Integer windowDays;
+
+    @Column(name = "scanned_expiry_date", nullable = false)
+    private LocalDate scannedExpiryDate;
+
+    @Column(name = "scanned_inventory_id", nullable = false)
+    private Long scannedInventoryId;
+
+    @Column(name = "last_inventory_id", nullable = false)
+    private Long lastInventoryId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public InventoryExpiryWatermark() {}
+
+    public InventoryExpiryWatermark(Integer windowDays, LocalDate scannedExpiryDate, Long scannedInventoryId,
+                                    Long lastInventoryId) {
+        this.windowDays = windowDays;
+        this.scannedExpiryDate = scannedExpiryDate;
+        this.scannedInventoryId = scannedInventoryId;
+        this.lastInventoryId = lastInventoryId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getWindowDays() {
+        return windowDays;
+    }
+
+    public void setWindowDays(Integer windowDays) {
+        this.windowDays = windowDays;
+    }
+
+    public LocalDate getScannedExpiryDate() {
+        return scannedExpiryDate;
+    }
+
+    public void setScannedExpiryDate(LocalDate scannedExpiryDate) {
+        this.scannedExpiryDate = scannedExpiryDate;
+    }
+
+    public Long getScannedInventoryId() {
+        return scannedInventoryId;
+    }
+
+    public void setScannedInventoryId(Long scannedInventoryId) {
+        this.scannedInventoryId = scannedInventoryId;
+    }
+
+    public Long getLastInventoryId() {
+        return lastInventoryId;
+    }
+
+    public void setLastInventoryId(Long lastInventoryId) {
+        this.lastInventoryId = lastInventoryId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,122 @@
+package org.erp.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running labor, inventory and approved purchase order totals for one project.
+ * Rows are kept current by {@link org.erp.service.ProjectCostCounterService} with deltas applied in the
+ * same transaction as the timesheet, inventory or purchase order change, and checked by its reconciliation job.
+ */
+@Entity
+@Table(name = "project_cost_counters",
+       uniqueConstraints = @UniqueConstraint(name = "uk_project_cost_counters_project",
+                                             columnNames = {"project_id"}))
+public class ProjectCostCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "labor_cost", nullable = false, precision = 19, scale = 2)
+    private BigDecimal laborCost = BigDecimal.ZERO;
+
+    @Column(name = "labor_hours", nullable = false, precision = 15, scale = 2)
+    private BigDecimal laborHours = BigDecimal.ZERO;
+
+    @Column(name = "timesheet_count", nullable = false)
+    private Long timesheetCount = 0L;
+
+    @Column(name = "inventory_cost", nullable = false, precision = 19, scale = 2)
+    private BigDecimal inventoryCost = BigDecimal.ZERO;
+
+    // Defaults in the column definitions let ddl-auto add these columns to a table that already has rows
+    @Column(name = "approved_purchase_order_amount", nullable = false, precision = 19, scale = 2,
+            columnDefinition = "numeric(19,2) default 0 not null")
+    private BigDecimal approvedPurchaseOrderAmount = BigDecimal.ZERO;
+
+    // Highest budget alert threshold (percent of budget) already raised for the current spend
+    @Column(name = "budget_alert_percent", nullable = false, columnDefinition = "integer default 0 not null")
+    private Integer budgetAlertPercent = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public ProjectCostCounter() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public void setLaborCost(BigDecimal laborCost) {
+        this.laborCost = laborCost;
+    }
+
+    public BigDecimal getLaborHours() {
+        return laborHours;
+    }
+
+    public void setLaborHours(BigDecimal laborHours) {
+        this.laborHours = laborHours;
+    }
+
+    public Long getTimesheetCount() {
+        return timesheetCount;
+    }
+
+    public void setTimesheetCount(Long timesheetCount) {
+        this.timesheetCount = timesheetCount;
+    }
+
+    public BigDecimal getInventoryCost() {
+        return inventoryCost;
+    }
+
+    public void setInventoryCost(BigDecimal inventoryCost) {
+        this.inventoryCost = inventoryCost;
+    }
+
+    public BigDecimal getApprovedPurchaseOrderAmount() {
+        return approvedPurchaseOrderAmount;
+    }
+
+    public void setApprovedPurchaseOrderAmount(BigDecimal approvedPurchaseOrderAmount) {
+        this.approvedPurchaseOrderAmount = approvedPurchaseOrderAmount;
+    }
+
+    public Integer getBudgetAlertPercent() {
+        return budgetAlertPercent;
+    }
+
+    public void setBudgetAlertPercent(Integer budgetAlertPercent) {
+        this.budgetAlertPercent = budgetAlertPercent;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,108 @@
+package org.erp.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-project, per-day totals for labor and purchase orders.
+ * Rows are maintained incrementally by {@link org.erp.service.ProjectRollupService}
+ * in the same transaction as the underlying change, and can be rebuilt from the raw tables.
+ */
+@Entity
+@Table(name = "project_daily_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_project_daily_rollups_project_date",
+                                             columnNames = {"project_id", "rollup_date"}))
+public class ProjectDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(name = "labor_hours", nullable = false, precision = 15, scale = 2)
+    private BigDecimal laborHours = BigDecimal.ZERO;
+
+    @Column(name = "labor_cost", nullable = false, precision = 19, scale = 2)
+    private BigDecimal laborCost = BigDecimal.ZERO;
+
+    @Column(name = "purchase_order_count", nullable = false)
+    private Long purchaseOrderCount = 0L;
+
+    @Column(name = "purchase_order_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal purchaseOrderAmount = BigDecimal.ZERO;
+
+    @Column(name = "approved_purchase_order_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal approvedPurchaseOrderAmount = BigDecimal.ZERO;
+
+    public ProjectDailyRollup() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    public BigDecimal getLaborHours() {
+        return laborHours;
+    }
+
+    public void setLaborHours(BigDecimal laborHours) {
+        this.laborHours = laborHours;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public void setLaborCost(BigDecimal laborCost) {
+        this.laborCost = laborCost;
+    }
+
+    public Long getPurchaseOrderCount() {
+        return purchaseOrderCount;
+    }
+
+    public void setPurchaseOrderCount(Long purchaseOrderCount) {
+        this.purchaseOrderCount = purchaseOrderCount;
+    }
+
+    public BigDecimal getPurchaseOrderAmount() {
+        return purchaseOrderAmount;
+    }
+
+    public void setPurchaseOrderAmount(BigDecimal purchaseOrderAmount) {
+        this.purchaseOrderAmount = purchaseOrderAmount;
+    }
+
+    public BigDecimal getApprovedPurchaseOrderAmount() {
+        return approvedPurchaseOrderAmount;
+    }
+
+    public void setApprovedPurchaseOrderAmount(BigDecimal approvedPurchaseOrderAmount) {
+        this.approvedPurchaseOrderAmount = approvedPurchaseOrderAmount;
+    }
+}
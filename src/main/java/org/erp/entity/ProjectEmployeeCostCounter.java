@@ -0,0 +1,83 @@
+package org.erp.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Running labor totals for one employee on one project, maintained alongside {@link ProjectCostCounter}.
+ */
+@Entity
+@Table(name = "project_employee_cost_counters",
+       uniqueConstraints = @UniqueConstraint(name = "uk_project_employee_cost_counters_project_employee",
+                                             columnNames = {"project_id", "employee_id"}))
+public class ProjectEmployeeCostCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    @Column(name = "labor_cost", nullable = false, precision = 19, scale = 2)
+    private BigDecimal laborCost = BigDecimal.ZERO;
+
+    @Column(name = "labor_hours", nullable = false, precision = 15, scale = 2)
+    private BigDecimal laborHours = BigDecimal.ZERO;
+
+    @Column(name = "timesheet_count", nullable = false)
+    private Long timesheetCount = 0L;
+
+    public ProjectEmployeeCostCounter() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(Long employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public void setLaborCost(BigDecimal laborCost) {
+        this.laborCost = laborCost;
+    }
+
+    public BigDecimal getLaborHours() {
+        return laborHours;
+    }
+
+    public void setLaborHours(BigDecimal laborHours) {
+        this.laborHours = laborHours;
+    }
+
+    public Long getTimesheetCount() {
+        return timesheetCount;
+    }
+
+    public void setTimesheetCount(Long timesheetCount) {
+        this.timesheetCount = timesheetCount;
+    }
+}
@@ -7,8 +7,13 @@ import java.math.BigDecimal;
 @Table(name = "purchase_order_items")
 public class PurchaseOrderItem {
     
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // Pooled sequence ids, so the lines of a PO can be inserted as one JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_order_items_seq")
+    @SequenceGenerator(name = "purchase_order_items_seq", sequenceName = "purchase_order_items_seq",
+                       allocationSize = PurchaseOrderItem.ID_ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,79 @@
+package org.erp.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A report requested through the job API. The report runs on the report job executor and
+ * its JSON result is written to {@code resultPath} until {@code expiresAt}.
+ */
+@Entity
+@Table(name = "report_jobs",
+       indexes = {
+           @Index(name = "idx_report_jobs_requested_by", columnList = "requested_by"),
+           @Index(name = "idx_report_jobs_expires_at", columnList = "expires_at")
+       })
+@Data
+@NoArgsConstructor
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "report_type", nullable = false)
+    private JobReportType reportType;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Column(name = "requested_by", nullable = false)
+    private String requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @JsonIgnore
+    @Column(name = "result_path")
+    private String resultPath;
+
+    @Column(name = "result_size")
+    private Long resultSize;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    public enum JobReportType {
+        CASH_FLOW,
+        EMPLOYEE_HOURS,
+        PROJECT_BREAKDOWN
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
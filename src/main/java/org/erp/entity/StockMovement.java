@@ -0,0 +1,106 @@
+package org.erp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One change to an inventory item's on-hand quantity. Rows are only ever inserted, so the ledger
+ * together with {@link StockSnapshot} answers what was on hand at any point in time.
+ * {@code referenceId} is the inventory request for admin changes and the project for allocations
+ * and releases.
+ */
+@Entity
+@Table(name = "stock_movements",
+       indexes = {
+           @Index(name = "idx_stock_movements_item_id", columnList = "inventory_item_id, id"),
+           @Index(name = "idx_stock_movements_occurred_at", columnList = "occurred_at")
+       })
+public class StockMovement {
+
+    public enum Reason {
+        OPENING_BALANCE,
+        ADMIN_CREATE,
+        ADMIN_EDIT,
+        ADMIN_DELETE,
+        ALLOCATION,
+        RELEASE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Not a foreign key: the history of a deleted item is kept
+    @Column(name = "inventory_item_id", nullable = false)
+    private Long inventoryItemId;
+
+    @Column(name = "quantity_delta", nullable = false)
+    private Integer quantityDelta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, length = 32)
+    private Reason reason;
+
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt = LocalDateTime.now();
+
+    public StockMovement() {}
+
+    public StockMovement(Long inventoryItemId, Integer quantityDelta, Reason reason, Long referenceId) {
+        this.inventoryItemId = inventoryItemId;
+        this.quantityDelta = quantityDelta;
+        this.reason = reason;
+        this.referenceId = referenceId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getInventoryItemId() {
+        return inventoryItemId;
+    }
+
+    public void setInventoryItemId(Long inventoryItemId) {
+        this.inventoryItemId = inventoryItemId;
+    }
+
+    public Integer getQuantityDelta() {
+        return quantityDelta;
+    }
+
+    public void setQuantityDelta(Integer quantityDelta) {
+        this.quantityDelta = quantityDelta;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public void setReason(Reason reason) {
+        this.reason = reason;
+    }
+
+    public Long getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(Long referenceId) {
+        this.referenceId = referenceId;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
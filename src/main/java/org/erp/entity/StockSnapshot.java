@@ -0,0 +1,76 @@
+package org.erp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An inventory item's on-hand quantity after every {@link StockMovement} up to {@code lastMovementId}.
+ * A snapshot run writes one row per item that moved since the previous run; all rows of a run share
+ * {@code snapshotAt} and {@code lastMovementId}.
+ */
+@Entity
+@Table(name = "stock_snapshots",
+       indexes = {
+           @Index(name = "idx_stock_snapshots_item_movement", columnList = "inventory_item_id, last_movement_id"),
+           @Index(name = "idx_stock_snapshots_at_movement", columnList = "snapshot_at, last_movement_id")
+       })
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "inventory_item_id", nullable = false)
+    private Long inventoryItemId;
+
+    @Column(name = "snapshot_at", nullable = false)
+    private LocalDateTime snapshotAt;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    public StockSnapshot() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getInventoryItemId() {
+        return inventoryItemId;
+    }
+
+    public void setInventoryItemId(Long inventoryItemId) {
+        this.inventoryItemId = inventoryItemId;
+    }
+
+    public LocalDateTime getSnapshotAt() {
+        return snapshotAt;
+    }
+
+    public void setSnapshotAt(LocalDateTime snapshotAt) {
+        this.snapshotAt = snapshotAt;
+    }
+
+    public Long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    public void setLastMovementId(Long lastMovementId) {
+        this.lastMovementId = lastMovementId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
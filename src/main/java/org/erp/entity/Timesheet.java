@@ -6,7 +6,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "timesheets")
+@Table(name = "timesheets",
+       uniqueConstraints = @UniqueConstraint(name = "uk_timesheets_project_employee_date",
+                                             columnNames = {"project_id", "employee_id", "work_date"}))
 public class Timesheet {
     
     @Id
@@ -1,14 +1,18 @@
 package org.erp.repository;
 
+import jakarta.persistence.QueryHint;
 import org.erp.entity.CashFlow;
 import org.erp.entity.Project;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CashFlowRepository extends JpaRepository<CashFlow, Long> {
@@ -27,4 +31,13 @@ public interface CashFlowRepository extends JpaRepository<CashFlow, Long> {
            "GROUP BY cf.project.id, cf.type")
     List<Object[]> getProjectCashFlowSummary(@Param("startDate") LocalDate startDate, 
                                              @Param("endDate") LocalDate endDate);
+    
+    // Forward-only cursor for exports; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT cf.id, p.id, p.projectDescription, cf.type, cf.amount, cf.transactionDate, cf.category, " +
+           "cf.description, cf.referenceNumber, cf.createdBy FROM CashFlow cf JOIN cf.project p " +
+           "WHERE cf.transactionDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY cf.transactionDate, cf.id")
+    Stream<Object[]> streamExportRows(@Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
 }
\ No newline at end of file
@@ -2,8 +2,12 @@ package org.erp.repository;
 
 import org.erp.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,4 +24,10 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     boolean existsByPassportId(String passportId);
     
     boolean existsByEmiratesId(String emiratesId);
+    
+    @Query("SELECT e.id FROM Employee e WHERE e.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT e.id, e.empId FROM Employee e")
+    List<Object[]> findAllIdsAndEmpIds();
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package org.erp.repository;
+
+import jakarta.persistence.LockModeType;
+import org.erp.entity.InventoryExpiryWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface InventoryExpiryWatermarkRepository extends JpaRepository<InventoryExpiryWatermark, Long> {
+
+    // Locked so two nodes scanning at once take turns instead of alerting the same items
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<InventoryExpiryWatermark> findByWindowDays(Integer windowDays);
+}
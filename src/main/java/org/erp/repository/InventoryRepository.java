@@ -1,10 +1,17 @@
 package org.erp.repository;
 
 import org.erp.entity.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,8 +21,64 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     
     boolean existsByInventoryId(String inventoryId);
     
-    @Query("SELECT COALESCE(MAX(CAST(SUBSTRING(i.inventoryId, 4) AS int)), 0) FROM Inventory i WHERE i.inventoryId LIKE 'INV%'")
-    Integer findMaxInventoryNumber();
-    
     void deleteByInventoryId(String inventoryId);
+    
+    /**
+     * Loads and row-locks the given items in id order, so concurrent multi-item allocations
+     * always lock in the same order and cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.id IN :ids ORDER BY i.id")
+    List<Inventory> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.id = :id")
+    Optional<Inventory> findByIdForUpdate(@Param("id") Long id);
+    
+    // Rows of {inventoryId, id}
+    @Query("SELECT i.inventoryId, i.id FROM Inventory i WHERE i.inventoryId IN :inventoryIds")
+    List<Object[]> findIdsByInventoryIdIn(@Param("inventoryIds") Collection<String> inventoryIds);
+    
+    @Query("SELECT COALESCE(MAX(i.id), 0) FROM Inventory i")
+    Long findMaxId();
+    
+    /**
+     * Items that have not expired yet, up to {@code horizon}, after the given (expiry date, id) position.
+     */
+    @Query(value = "SELECT * FROM inventory WHERE expiry_date >= :today AND expiry_date <= :horizon " +
+                   "AND (expiry_date, id) > (:afterDate, :afterId) ORDER BY expiry_date, id LIMIT :limit",
+           nativeQuery = true)
+    List<Inventory> findExpiringAfter(@Param("today") LocalDate today, @Param("horizon") LocalDate horizon,
+                                      @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+                                      @Param("limit") int limit);
+    
+    /**
+     * Items added after {@code afterId} whose expiry falls at or before the given (expiry date, id) position.
+     */
+    @Query(value = "SELECT * FROM inventory WHERE id > :afterId AND id <= :maxId AND expiry_date >= :today " +
+                   "AND (expiry_date, id) <= (:throughDate, :throughId) ORDER BY id LIMIT :limit",
+           nativeQuery = true)
+    List<Inventory> findAddedExpiringBefore(@Param("afterId") Long afterId, @Param("maxId") Long maxId,
+                                            @Param("today") LocalDate today,
+                                            @Param("throughDate") LocalDate throughDate,
+                                            @Param("throughId") Long throughId, @Param("limit") int limit);
+    
+    @Query("SELECT i.quantity FROM Inventory i WHERE i.id = :id")
+    Integer findQuantityById(@Param("id") Long id);
+    
+    /**
+     * Takes {@code quantity} units only if that many are still on hand; returns 0 when another
+     * allocation got there first.
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, " +
+           "i.totalPrice = i.perQuantityPrice * (i.quantity - :quantity) " +
+           "WHERE i.id = :id AND i.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity, " +
+           "i.totalPrice = i.perQuantityPrice * (i.quantity + :quantity) " +
+           "WHERE i.id = :id")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package org.erp.repository;
 
+import jakarta.persistence.LockModeType;
 import org.erp.entity.InventoryRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +19,9 @@ public interface InventoryRequestRepository extends JpaRepository<InventoryReque
     List<InventoryRequest> findByRequestedBy(String requestedBy);
     
     List<InventoryRequest> findByRequestedByOrderByRequestDateDesc(String requestedBy);
-}
\ No newline at end of file
+    
+    // Locked in id order so two admins deciding overlapping batches cannot both apply a request
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM InventoryRequest r WHERE r.id IN :ids ORDER BY r.id")
+    List<InventoryRequest> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+}
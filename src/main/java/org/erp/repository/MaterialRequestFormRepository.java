@@ -2,7 +2,6 @@ package org.erp.repository;
 
 import org.erp.entity.MaterialRequestForm;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,6 +18,4 @@ public interface MaterialRequestFormRepository extends JpaRepository<MaterialReq
     
     List<MaterialRequestForm> findByStatusAndRequiresSuperadmin(MaterialRequestForm.MRFStatus status, Boolean requiresSuperadmin);
     
-    @Query("SELECT COALESCE(MAX(CAST(SUBSTRING(m.mrfNumber, 4) AS int)), 0) FROM MaterialRequestForm m WHERE m.mrfNumber LIKE 'MRF%'")
-    Integer findMaxMrfNumber();
 }
\ No newline at end of file
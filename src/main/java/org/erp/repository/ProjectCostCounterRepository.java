@@ -0,0 +1,105 @@
+package org.erp.repository;
+
+import org.erp.entity.ProjectCostCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProjectCostCounterRepository extends JpaRepository<ProjectCostCounter, Long> {
+    
+    // Purchase orders that count against a project's budget
+    String APPROVED_PURCHASE_ORDERS = "is_approved = true AND po_status <> 'CANCELLED'";
+    
+    // project_id, labor_cost, labor_hours, timesheet_count, inventory_cost, approved_purchase_order_amount
+    // recomputed from the raw tables
+    String PROJECT_SOURCE_TOTALS =
+            "SELECT p.id AS project_id, COALESCE(t.labor_cost, 0) AS labor_cost, COALESCE(t.labor_hours, 0) AS labor_hours, " +
+            "COALESCE(t.timesheet_count, 0) AS timesheet_count, COALESCE(i.inventory_cost, 0) AS inventory_cost, " +
+            "COALESCE(po.approved_amount, 0) AS approved_purchase_order_amount " +
+            "FROM projects p " +
+            "LEFT JOIN (SELECT project_id, SUM(COALESCE(total_amount, 0)) AS labor_cost, " +
+            "           SUM(COALESCE(hours_worked, 0)) AS labor_hours, COUNT(*) AS timesheet_count " +
+            "           FROM timesheets GROUP BY project_id) t ON t.project_id = p.id " +
+            "LEFT JOIN (SELECT project_id, SUM(COALESCE(total_price, 0)) AS inventory_cost " +
+            "           FROM project_inventory_items GROUP BY project_id) i ON i.project_id = p.id " +
+            "LEFT JOIN (SELECT project_id, SUM(COALESCE(total_amount, 0)) AS approved_amount " +
+            "           FROM purchase_orders WHERE " + APPROVED_PURCHASE_ORDERS + " GROUP BY project_id) po " +
+            "ON po.project_id = p.id";
+    
+    Optional<ProjectCostCounter> findByProjectId(Long projectId);
+    
+    // Also used with zero deltas to take the counter's row lock before a repair
+    @Modifying
+    @Query(value = "INSERT INTO project_cost_counters (project_id, labor_cost, labor_hours, timesheet_count, inventory_cost, updated_at) " +
+                   "VALUES (:projectId, :laborCost, :laborHours, :timesheetCount, :inventoryCost, now()) " +
+                   "ON CONFLICT (project_id) DO UPDATE SET " +
+                   "labor_cost = project_cost_counters.labor_cost + EXCLUDED.labor_cost, " +
+                   "labor_hours = project_cost_counters.labor_hours + EXCLUDED.labor_hours, " +
+                   "timesheet_count = project_cost_counters.timesheet_count + EXCLUDED.timesheet_count, " +
+                   "inventory_cost = project_cost_counters.inventory_cost + EXCLUDED.inventory_cost, " +
+                   "updated_at = now()",
+           nativeQuery = true)
+    void applyDelta(@Param("projectId") Long projectId,
+                    @Param("laborCost") BigDecimal laborCost,
+                    @Param("laborHours") BigDecimal laborHours,
+                    @Param("timesheetCount") long timesheetCount,
+                    @Param("inventoryCost") BigDecimal inventoryCost);
+    
+    @Modifying
+    @Query(value = "INSERT INTO project_cost_counters (project_id, labor_cost, labor_hours, timesheet_count, inventory_cost, " +
+                   "approved_purchase_order_amount, budget_alert_percent, updated_at) " +
+                   "VALUES (:projectId, 0, 0, 0, 0, :amount, 0, now()) " +
+                   "ON CONFLICT (project_id) DO UPDATE SET " +
+                   "approved_purchase_order_amount = project_cost_counters.approved_purchase_order_amount + EXCLUDED.approved_purchase_order_amount, " +
+                   "updated_at = now()",
+           nativeQuery = true)
+    void applyApprovedPurchaseOrderDelta(@Param("projectId") Long projectId, @Param("amount") BigDecimal amount);
+    
+    // Rows of {approved_purchase_order_amount, budget_alert_percent}; read after a delta, so the row is locked
+    @Query(value = "SELECT approved_purchase_order_amount, budget_alert_percent FROM project_cost_counters " +
+                   "WHERE project_id = :projectId",
+           nativeQuery = true)
+    List<Object[]> findBudgetState(@Param("projectId") Long projectId);
+    
+    @Modifying
+    @Query(value = "UPDATE project_cost_counters SET budget_alert_percent = :percent WHERE project_id = :projectId",
+           nativeQuery = true)
+    void updateBudgetAlertPercent(@Param("projectId") Long projectId, @Param("percent") int percent);
+    
+    @Modifying
+    @Query(value = "UPDATE project_cost_counters SET " +
+                   "labor_cost = (SELECT COALESCE(SUM(total_amount), 0) FROM timesheets WHERE project_id = :projectId), " +
+                   "labor_hours = (SELECT COALESCE(SUM(hours_worked), 0) FROM timesheets WHERE project_id = :projectId), " +
+                   "timesheet_count = (SELECT COUNT(*) FROM timesheets WHERE project_id = :projectId), " +
+                   "inventory_cost = (SELECT COALESCE(SUM(total_price), 0) FROM project_inventory_items WHERE project_id = :projectId), " +
+                   "approved_purchase_order_amount = (SELECT COALESCE(SUM(total_amount), 0) FROM purchase_orders " +
+                   "                                  WHERE project_id = :projectId AND " + APPROVED_PURCHASE_ORDERS + "), " +
+                   "updated_at = now() " +
+                   "WHERE project_id = :projectId",
+           nativeQuery = true)
+    int recomputeFromSourceTables(@Param("projectId") Long projectId);
+    
+    @Modifying
+    @Query(value = "INSERT INTO project_cost_counters (project_id, labor_cost, labor_hours, timesheet_count, inventory_cost, " +
+                   "approved_purchase_order_amount, budget_alert_percent, updated_at) " +
+                   "SELECT project_id, labor_cost, labor_hours, timesheet_count, inventory_cost, " +
+                   "approved_purchase_order_amount, 0, now() " +
+                   "FROM (" + PROJECT_SOURCE_TOTALS + ") s " +
+                   "ON CONFLICT (project_id) DO NOTHING",
+           nativeQuery = true)
+    int insertMissingFromSourceTables();
+    
+    @Modifying
+    @Query(value = "DELETE FROM project_cost_counters WHERE project_id = :projectId", nativeQuery = true)
+    void deleteByProjectId(@Param("projectId") Long projectId);
+    
+    @Query(value = PROJECT_SOURCE_TOTALS, nativeQuery = true)
+    List<Object[]> getSourceTotals();
+}
@@ -0,0 +1,70 @@
+package org.erp.repository;
+
+import org.erp.entity.ProjectDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProjectDailyRollupRepository extends JpaRepository<ProjectDailyRollup, Long> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO project_daily_rollups (project_id, rollup_date, labor_hours, labor_cost, " +
+                   "purchase_order_count, purchase_order_amount, approved_purchase_order_amount) " +
+                   "VALUES (:projectId, :rollupDate, :laborHours, :laborCost, " +
+                   ":purchaseOrderCount, :purchaseOrderAmount, :approvedPurchaseOrderAmount) " +
+                   "ON CONFLICT (project_id, rollup_date) DO UPDATE SET " +
+                   "labor_hours = project_daily_rollups.labor_hours + EXCLUDED.labor_hours, " +
+                   "labor_cost = project_daily_rollups.labor_cost + EXCLUDED.labor_cost, " +
+                   "purchase_order_count = project_daily_rollups.purchase_order_count + EXCLUDED.purchase_order_count, " +
+                   "purchase_order_amount = project_daily_rollups.purchase_order_amount + EXCLUDED.purchase_order_amount, " +
+                   "approved_purchase_order_amount = project_daily_rollups.approved_purchase_order_amount + EXCLUDED.approved_purchase_order_amount",
+           nativeQuery = true)
+    void applyDelta(@Param("projectId") Long projectId,
+                    @Param("rollupDate") LocalDate rollupDate,
+                    @Param("laborHours") BigDecimal laborHours,
+                    @Param("laborCost") BigDecimal laborCost,
+                    @Param("purchaseOrderCount") long purchaseOrderCount,
+                    @Param("purchaseOrderAmount") BigDecimal purchaseOrderAmount,
+                    @Param("approvedPurchaseOrderAmount") BigDecimal approvedPurchaseOrderAmount);
+    
+    @Modifying
+    @Query(value = "DELETE FROM project_daily_rollups", nativeQuery = true)
+    void deleteAllRollups();
+    
+    @Modifying
+    @Query(value = "INSERT INTO project_daily_rollups (project_id, rollup_date, labor_hours, labor_cost, " +
+                   "purchase_order_count, purchase_order_amount, approved_purchase_order_amount) " +
+                   "SELECT project_id, rollup_date, SUM(labor_hours), SUM(labor_cost), " +
+                   "SUM(purchase_order_count), SUM(purchase_order_amount), SUM(approved_purchase_order_amount) " +
+                   "FROM (" +
+                   "  SELECT project_id, work_date AS rollup_date, COALESCE(hours_worked, 0) AS labor_hours, " +
+                   "         COALESCE(total_amount, 0) AS labor_cost, 0 AS purchase_order_count, " +
+                   "         0 AS purchase_order_amount, 0 AS approved_purchase_order_amount " +
+                   "  FROM timesheets " +
+                   "  UNION ALL " +
+                   "  SELECT project_id, CAST(created_date AS date), 0, 0, 1, COALESCE(total_amount, 0), " +
+                   "         CASE WHEN is_approved THEN COALESCE(total_amount, 0) ELSE 0 END " +
+                   "  FROM purchase_orders" +
+                   ") source " +
+                   "GROUP BY project_id, rollup_date",
+           nativeQuery = true)
+    int rebuildFromSourceTables();
+    
+    @Modifying
+    @Query("DELETE FROM ProjectDailyRollup r WHERE r.projectId = :projectId")
+    void deleteByProjectId(@Param("projectId") Long projectId);
+    
+    @Query("SELECT r.projectId, SUM(r.purchaseOrderCount), SUM(r.purchaseOrderAmount), " +
+           "SUM(r.laborCost), SUM(r.laborHours) FROM ProjectDailyRollup r " +
+           "WHERE r.rollupDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.projectId")
+    List<Object[]> getProjectSummary(@Param("startDate") LocalDate startDate,
+                                     @Param("endDate") LocalDate endDate);
+}
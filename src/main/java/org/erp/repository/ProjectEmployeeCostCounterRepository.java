@@ -0,0 +1,60 @@
+package org.erp.repository;
+
+import org.erp.entity.ProjectEmployeeCostCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface ProjectEmployeeCostCounterRepository extends JpaRepository<ProjectEmployeeCostCounter, Long> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO project_employee_cost_counters (project_id, employee_id, labor_cost, labor_hours, timesheet_count) " +
+                   "VALUES (:projectId, :employeeId, :laborCost, :laborHours, :timesheetCount) " +
+                   "ON CONFLICT (project_id, employee_id) DO UPDATE SET " +
+                   "labor_cost = project_employee_cost_counters.labor_cost + EXCLUDED.labor_cost, " +
+                   "labor_hours = project_employee_cost_counters.labor_hours + EXCLUDED.labor_hours, " +
+                   "timesheet_count = project_employee_cost_counters.timesheet_count + EXCLUDED.timesheet_count",
+           nativeQuery = true)
+    void applyDelta(@Param("projectId") Long projectId,
+                    @Param("employeeId") Long employeeId,
+                    @Param("laborCost") BigDecimal laborCost,
+                    @Param("laborHours") BigDecimal laborHours,
+                    @Param("timesheetCount") long timesheetCount);
+    
+    @Modifying
+    @Query(value = "DELETE FROM project_employee_cost_counters WHERE project_id = :projectId", nativeQuery = true)
+    void deleteByProjectId(@Param("projectId") Long projectId);
+    
+    @Modifying
+    @Query(value = "INSERT INTO project_employee_cost_counters (project_id, employee_id, labor_cost, labor_hours, timesheet_count) " +
+                   "SELECT project_id, employee_id, SUM(COALESCE(total_amount, 0)), SUM(COALESCE(hours_worked, 0)), COUNT(*) " +
+                   "FROM timesheets WHERE project_id = :projectId GROUP BY project_id, employee_id",
+           nativeQuery = true)
+    int insertFromTimesheets(@Param("projectId") Long projectId);
+    
+    @Modifying
+    @Query(value = "INSERT INTO project_employee_cost_counters (project_id, employee_id, labor_cost, labor_hours, timesheet_count) " +
+                   "SELECT project_id, employee_id, SUM(COALESCE(total_amount, 0)), SUM(COALESCE(hours_worked, 0)), COUNT(*) " +
+                   "FROM timesheets GROUP BY project_id, employee_id " +
+                   "ON CONFLICT (project_id, employee_id) DO NOTHING",
+           nativeQuery = true)
+    int insertMissingFromTimesheets();
+    
+    // project_id, employee_id, labor_cost, labor_hours, timesheet_count recomputed from timesheets
+    @Query(value = "SELECT project_id, employee_id, SUM(COALESCE(total_amount, 0)), SUM(COALESCE(hours_worked, 0)), COUNT(*) " +
+                   "FROM timesheets GROUP BY project_id, employee_id",
+           nativeQuery = true)
+    List<Object[]> getSourceTotals();
+    
+    @Query("SELECT c.employeeId, e.name, e.empId, c.laborCost, c.laborHours, c.timesheetCount " +
+           "FROM ProjectEmployeeCostCounter c, Employee e " +
+           "WHERE e.id = c.employeeId AND c.projectId = :projectId AND c.timesheetCount > 0 " +
+           "ORDER BY e.name, e.id")
+    List<Object[]> findBreakdownByProjectId(@Param("projectId") Long projectId);
+}
@@ -3,10 +3,13 @@ package org.erp.repository;
 import org.erp.entity.Project;
 import org.erp.entity.ProjectInventoryItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,7 +23,43 @@ public interface ProjectInventoryItemRepository extends JpaRepository<ProjectInv
     List<ProjectInventoryItem> findProjectInventoryItemsByProjectId(@Param("projectId") Long projectId);
     
     @Query("SELECT SUM(pii.totalPrice) FROM ProjectInventoryItem pii WHERE pii.project.id = :projectId")
-    Double getTotalInventoryExpenseByProjectId(@Param("projectId") Long projectId);
+    BigDecimal getTotalInventoryExpenseByProjectId(@Param("projectId") Long projectId);
     
     List<ProjectInventoryItem> findByProject(Project project);
-}
\ No newline at end of file
+    
+    @Query("SELECT pii.project.id, SUM(COALESCE(pii.totalPrice, 0)), SUM(COALESCE(pii.allocatedQuantity, 0)) " +
+           "FROM ProjectInventoryItem pii GROUP BY pii.project.id")
+    List<Object[]> getProjectInventorySummary();
+    
+    // Returns 0 when the item was already removed, so its stock is only given back once
+    @Modifying
+    @Query("DELETE FROM ProjectInventoryItem pii WHERE pii.id = :id")
+    int deleteItemById(@Param("id") Long id);
+    
+    /**
+     * Rows of {item id, project id, inventory id, shortage quantity, supplier name, current unit price} for
+     * shortages without a PO, oldest first. Only the item rows are locked; items locked by a concurrent
+     * sweep are skipped rather than ordered twice.
+     */
+    @Query(value = "SELECT pii.id, pii.project_id, pii.inventory_id, pii.shortage_quantity, i.supplier_name, " +
+                   "i.per_quantity_price " +
+                   "FROM project_inventory_items pii JOIN inventory i ON i.id = pii.inventory_id " +
+                   "WHERE pii.shortage_quantity > 0 AND pii.po_created IS NOT TRUE " +
+                   "ORDER BY pii.id LIMIT :limit FOR UPDATE OF pii SKIP LOCKED",
+           nativeQuery = true)
+    List<Object[]> findOpenShortagesForUpdate(@Param("limit") int limit);
+    
+    /**
+     * Open shortages of one inventory item without a PO, in the order they were raised, locked for filling.
+     */
+    @Query(value = "SELECT * FROM project_inventory_items WHERE inventory_id = :inventoryId AND shortage_quantity > 0 " +
+                   "AND po_created IS NOT TRUE AND id > :afterId ORDER BY id LIMIT :limit FOR UPDATE",
+           nativeQuery = true)
+    List<ProjectInventoryItem> findOpenShortagesByInventoryForUpdate(@Param("inventoryId") Long inventoryId,
+                                                                     @Param("afterId") Long afterId,
+                                                                     @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE ProjectInventoryItem pii SET pii.poCreated = true WHERE pii.id IN :ids")
+    int markPurchaseOrderCreated(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,27 @@
+package org.erp.repository;
+
+import org.erp.entity.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    List<ReportJob> findByRequestedByOrderByCreatedAtDesc(String requestedBy);
+
+    List<ReportJob> findByExpiresAtBefore(LocalDateTime cutoff);
+
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = org.erp.entity.ReportJob.JobStatus.FAILED, " +
+           "j.errorMessage = :errorMessage, j.completedAt = :now, j.expiresAt = :expiresAt " +
+           "WHERE j.status IN (org.erp.entity.ReportJob.JobStatus.QUEUED, org.erp.entity.ReportJob.JobStatus.RUNNING)")
+    int failUnfinishedJobs(@Param("errorMessage") String errorMessage,
+                           @Param("now") LocalDateTime now,
+                           @Param("expiresAt") LocalDateTime expiresAt);
+}
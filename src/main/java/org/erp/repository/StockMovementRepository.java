@@ -0,0 +1,34 @@
+package org.erp.repository;
+
+import org.erp.entity.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO stock_movements (inventory_item_id, quantity_delta, reason, reference_id, occurred_at) " +
+                   "SELECT id, quantity, 'OPENING_BALANCE', NULL, now() FROM inventory WHERE quantity <> 0",
+           nativeQuery = true)
+    int insertOpeningBalances();
+    
+    @Query("SELECT MAX(m.id) FROM StockMovement m WHERE m.occurredAt < :cutoff")
+    Long findMaxIdBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    @Query("SELECT COALESCE(SUM(m.quantityDelta), 0) FROM StockMovement m " +
+           "WHERE m.inventoryItemId = :itemId AND m.id > :afterId AND m.occurredAt <= :at")
+    Long sumDeltasAfter(@Param("itemId") Long itemId, @Param("afterId") Long afterId,
+                        @Param("at") LocalDateTime at);
+    
+    // Rows of {inventory item id, summed delta}
+    @Query("SELECT m.inventoryItemId, SUM(m.quantityDelta) FROM StockMovement m " +
+           "WHERE m.id > :afterId AND m.occurredAt <= :at GROUP BY m.inventoryItemId")
+    List<Object[]> sumDeltasByItemAfter(@Param("afterId") Long afterId, @Param("at") LocalDateTime at);
+}
@@ -0,0 +1,51 @@
+package org.erp.repository;
+
+import org.erp.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    
+    // Movements up to this id are covered by the snapshots taken so far
+    @Query(value = "SELECT last_movement_id FROM stock_snapshots ORDER BY snapshot_at DESC, last_movement_id DESC LIMIT 1",
+           nativeQuery = true)
+    Long findLatestMovementId();
+    
+    @Query(value = "SELECT MAX(last_movement_id) FROM stock_snapshots WHERE snapshot_at <= :at", nativeQuery = true)
+    Long findLatestMovementIdAt(@Param("at") LocalDateTime at);
+    
+    @Query(value = "SELECT * FROM stock_snapshots WHERE inventory_item_id = :itemId AND snapshot_at <= :at " +
+                   "ORDER BY last_movement_id DESC LIMIT 1",
+           nativeQuery = true)
+    Optional<StockSnapshot> findLatestForItemAt(@Param("itemId") Long itemId, @Param("at") LocalDateTime at);
+    
+    // Rows of {inventory item id, quantity} from each item's newest snapshot up to the given movement
+    @Query(value = "SELECT DISTINCT ON (inventory_item_id) inventory_item_id, quantity FROM stock_snapshots " +
+                   "WHERE last_movement_id <= :movementId ORDER BY inventory_item_id, last_movement_id DESC",
+           nativeQuery = true)
+    List<Object[]> findQuantitiesAsOf(@Param("movementId") Long movementId);
+    
+    /**
+     * Rolls the movements in ({@code afterId}, {@code throughId}] onto each moved item's previous snapshot.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_snapshots (inventory_item_id, snapshot_at, last_movement_id, quantity) " +
+                   "SELECT m.inventory_item_id, :snapshotAt, :throughId, COALESCE(p.quantity, 0) + SUM(m.quantity_delta) " +
+                   "FROM stock_movements m " +
+                   "LEFT JOIN LATERAL (SELECT s.quantity FROM stock_snapshots s " +
+                   "                   WHERE s.inventory_item_id = m.inventory_item_id " +
+                   "                   ORDER BY s.last_movement_id DESC LIMIT 1) p ON true " +
+                   "WHERE m.id > :afterId AND m.id <= :throughId " +
+                   "GROUP BY m.inventory_item_id, p.quantity",
+           nativeQuery = true)
+    int insertSnapshots(@Param("snapshotAt") LocalDateTime snapshotAt, @Param("afterId") Long afterId,
+                        @Param("throughId") Long throughId);
+}
@@ -1,14 +1,19 @@
 package org.erp.repository;
 
+import jakarta.persistence.QueryHint;
 import org.erp.entity.Project;
 import org.erp.entity.Timesheet;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TimesheetRepository extends JpaRepository<Timesheet, Long> {
@@ -34,7 +39,52 @@ public interface TimesheetRepository extends JpaRepository<Timesheet, Long> {
     @Query("SELECT COUNT(DISTINCT t.employee.id) FROM Timesheet t WHERE t.project.id = :projectId AND t.workDate = :workDate")
     Long getEmployeeCountByProjectAndDate(@Param("projectId") Long projectId, @Param("workDate") LocalDate workDate);
     
+    @Query("SELECT t.workDate, COUNT(DISTINCT t.employee.id), SUM(t.hoursWorked) FROM Timesheet t " +
+           "WHERE t.project.id = :projectId AND t.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY t.workDate ORDER BY t.workDate")
+    List<Object[]> getDailyStatsByProjectAndDateRange(@Param("projectId") Long projectId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+    
     List<Timesheet> findByWorkDateBetween(LocalDate startDate, LocalDate endDate);
     
     List<Timesheet> findByProjectAndWorkDateBetween(Project project, LocalDate startDate, LocalDate endDate);
+    
+    @Query("SELECT e.id, e.name, e.empId, p.id, p.projectDescription, SUM(t.hoursWorked), SUM(t.totalAmount), " +
+           "MAX(t.dailyRate), MAX(t.hourlyRate) FROM Timesheet t JOIN t.employee e JOIN t.project p " +
+           "WHERE t.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY e.id, e.name, e.empId, p.id, p.projectDescription " +
+           "ORDER BY e.id, p.id")
+    List<Object[]> getEmployeeProjectHoursSummary(@Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate);
+    
+    // Forward-only cursor for exports; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.id, t.workDate, e.id, e.empId, e.name, p.id, p.projectDescription, " +
+           "t.hoursWorked, t.hourlyRate, t.dailyRate, t.totalAmount FROM Timesheet t JOIN t.employee e JOIN t.project p " +
+           "WHERE t.workDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY t.workDate, t.id")
+    Stream<Object[]> streamExportRows(@Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+    
+    // Columns loaded into the in-memory timesheet snapshot; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.id, t.employee.id, t.project.id, t.workDate, t.hoursWorked, t.totalAmount FROM Timesheet t")
+    Stream<Object[]> streamSnapshotRows();
+    
+    @Query("SELECT e.id, e.name, e.empId, t.workDate, SUM(t.hoursWorked) FROM Timesheet t JOIN t.employee e " +
+           "WHERE t.project.id = :projectId AND t.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY e.id, e.name, e.empId, t.workDate " +
+           "ORDER BY e.name, e.id")
+    List<Object[]> getEmployeeDailyHours(@Param("projectId") Long projectId,
+                                         @Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT t.id, t.employee.id, t.workDate, t.hoursWorked, t.totalAmount FROM Timesheet t " +
+           "WHERE t.project.id = :projectId AND t.employee.id IN :employeeIds " +
+           "AND t.workDate BETWEEN :startDate AND :endDate")
+    List<Object[]> findGridCells(@Param("projectId") Long projectId,
+                                 @Param("employeeIds") Collection<Long> employeeIds,
+                                 @Param("startDate") LocalDate startDate,
+                                 @Param("endDate") LocalDate endDate);
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByUsername(String username);
     
+    @Query("SELECT COUNT(u) > 0 FROM User u JOIN u.roles r WHERE u.username = :username AND r.name = :roleName")
+    boolean hasRole(@Param("username") String username, @Param("roleName") String roleName);
+    
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName")
     List<User> findByRolesName(@Param("roleName") String roleName);
-}
\ No newline at end of file
+    
+    // Rows of {username, id}
+    @Query("SELECT u.username, u.id FROM User u WHERE u.username IN :usernames")
+    List<Object[]> findIdsByUsernameIn(@Param("usernames") Collection<String> usernames);
+}
@@ -0,0 +1,92 @@
+package org.erp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Hands out INV/MRF/PO business keys from PostgreSQL sequences using hi/lo blocks.
+ * Each sequence steps by {@link #BLOCK_SIZE}; one {@code nextval} reserves a block that this node
+ * then numbers from memory, so nodes never share a number and most keys need no database call.
+ * Numbers are unique but not gap-free: an unused block tail is skipped after a restart.
+ */
+@Component
+public class BusinessKeyAllocator {
+
+    public static final int BLOCK_SIZE = 50;
+
+    public enum KeyFamily {
+        INVENTORY("inventory_number_seq",
+                "SELECT COALESCE(MAX(n), 0) FROM (" +
+                "SELECT CAST(SUBSTRING(inventory_id FROM 4) AS bigint) AS n FROM inventory WHERE inventory_id ~ '^INV[0-9]+$' " +
+                "UNION ALL " +
+                "SELECT CAST(SUBSTRING(inventory_id FROM 4) AS bigint) FROM inventory_requests WHERE inventory_id ~ '^INV[0-9]+$') used"),
+        MRF("mrf_number_seq",
+                "SELECT COALESCE(MAX(CAST(SUBSTRING(mrf_number FROM 4) AS bigint)), 0) FROM material_request_forms " +
+                "WHERE mrf_number ~ '^MRF[0-9]+$'"),
+        // Older PO numbers end in a millisecond timestamp and can never match the zero-padded form
+        PURCHASE_ORDER("po_number_seq", null);
+
+        private final String sequenceName;
+        private final String maxUsedNumberSql;
+
+        KeyFamily(String sequenceName, String maxUsedNumberSql) {
+            this.sequenceName = sequenceName;
+            this.maxUsedNumberSql = maxUsedNumberSql;
+        }
+
+        public String getSequenceName() {
+            return sequenceName;
+        }
+
+        /**
+         * Query for the highest number already used by existing rows, or null when none can clash.
+         */
+        public String getMaxUsedNumberSql() {
+            return maxUsedNumberSql;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<KeyFamily, Block> blocks = new EnumMap<>(KeyFamily.class);
+
+    public BusinessKeyAllocator() {
+        for (KeyFamily family : KeyFamily.values()) {
+            blocks.put(family, new Block());
+        }
+    }
+
+    public String nextInventoryId() {
+        return "INV" + String.format("%04d", next(KeyFamily.INVENTORY));
+    }
+
+    public String nextMrfNumber() {
+        return "MRF" + String.format("%04d", next(KeyFamily.MRF));
+    }
+
+    public String nextPurchaseOrderNumber(Long projectId) {
+        return projectId + "-PO-" + String.format("%06d", next(KeyFamily.PURCHASE_ORDER));
+    }
+
+    public long next(KeyFamily family) {
+        Block block = blocks.get(family);
+        synchronized (block) {
+            if (block.next >= block.limit) {
+                Long start = jdbcTemplate.queryForObject("SELECT nextval('" + family.getSequenceName() + "')", Long.class);
+                block.next = start;
+                block.limit = start + BLOCK_SIZE;
+            }
+            return block.next++;
+        }
+    }
+
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+}
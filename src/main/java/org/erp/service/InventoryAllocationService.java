@@ -0,0 +1,251 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.Inventory;
+import org.erp.entity.Project;
+import org.erp.entity.ProjectInventoryItem;
+import org.erp.entity.StockMovement;
+import org.erp.repository.InventoryRepository;
+import org.erp.repository.ProjectInventoryItemRepository;
+import org.erp.repository.ProjectRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Moves stock between inventory and projects without read-modify-write on {@code Inventory.quantity}.
+ * Allocation decrements with {@code UPDATE ... WHERE quantity >= ?} and re-reads the stock when another
+ * allocation won the race; releases increment in place. Only the inventory row is locked, and only
+ * from the update until commit. Multi-line allocations lock all their rows up front, in id order.
+ */
+@Service
+@Transactional
+public class InventoryAllocationService {
+
+    private static final Logger logger = LogManager.getLogger(InventoryAllocationService.class);
+
+    private static final int MAX_BATCH_LINES = 1000;
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO project_inventory_items (project_id, inventory_id, required_quantity, allocated_quantity, " +
+            "shortage_quantity, unit_price, total_price, po_created) VALUES (?, ?, ?, ?, ?, ?, ?, false)";
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectInventoryItemRepository projectInventoryItemRepository;
+
+    @Autowired
+    private ProjectCostCounterService projectCostCounterService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryCatalogCache inventoryCatalogCache;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private ShortageBackfillService shortageBackfillService;
+
+    @Value("${erp.inventory.allocation.max-retries:5}")
+    private int maxRetries;
+
+    public static class AllocationLine {
+        private final Long inventoryId;
+        private final Integer requiredQuantity;
+
+        public AllocationLine(Long inventoryId, Integer requiredQuantity) {
+            this.inventoryId = inventoryId;
+            this.requiredQuantity = requiredQuantity;
+        }
+
+        public Long getInventoryId() { return inventoryId; }
+        public Integer getRequiredQuantity() { return requiredQuantity; }
+    }
+
+    /**
+     * Allocates as much of {@code requiredQuantity} as is on hand and records the rest as shortage.
+     * Returns empty when the project or inventory item does not exist.
+     */
+    public Optional<ProjectInventoryItem> allocate(Long projectId, Long inventoryId, int requiredQuantity) {
+        if (requiredQuantity <= 0) {
+            throw new IllegalArgumentException("Required quantity must be positive");
+        }
+        Optional<Project> projectOpt = projectRepository.findById(projectId);
+        if (projectOpt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int allocatedQuantity = takeStock(inventoryId, requiredQuantity);
+        if (allocatedQuantity < 0) {
+            return Optional.empty();
+        }
+        stockLedgerService.record(inventoryId, -allocatedQuantity, StockMovement.Reason.ALLOCATION, projectId);
+
+        // The price is reference data; the stock itself was only touched by the conditional update
+        InventoryCatalogCache.CatalogEntry catalogEntry = inventoryCatalogCache.get(inventoryId)
+                .orElseThrow(() -> new RuntimeException("Inventory not found"));
+        Inventory inventory = inventoryRepository.getReferenceById(inventoryId);
+        BigDecimal unitPrice = catalogEntry.getPerQuantityPrice();
+        BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(allocatedQuantity));
+
+        ProjectInventoryItem item = new ProjectInventoryItem(projectOpt.get(), inventory, requiredQuantity,
+                allocatedQuantity, requiredQuantity - allocatedQuantity, unitPrice, totalPrice);
+        ProjectInventoryItem savedItem = projectInventoryItemRepository.save(item);
+
+        projectCostCounterService.recordInventoryCost(projectId, totalPrice);
+        reportCacheService.invalidateInventory();
+        return Optional.of(savedItem);
+    }
+
+    /**
+     * Allocates a whole bill of materials in one transaction: either every line is recorded or none is.
+     * Lines for the same inventory item draw on the same stock in request order.
+     * Returns empty when the project does not exist.
+     */
+    public Optional<Map<String, Object>> allocateAll(Long projectId, List<AllocationLine> lines) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one line is required");
+        }
+        if (lines.size() > MAX_BATCH_LINES) {
+            throw new IllegalArgumentException("A batch cannot have more than " + MAX_BATCH_LINES + " lines");
+        }
+        for (AllocationLine line : lines) {
+            if (line.getInventoryId() == null || line.getRequiredQuantity() == null || line.getRequiredQuantity() <= 0) {
+                throw new IllegalArgumentException("Every line needs an inventoryId and a positive requiredQuantity");
+            }
+        }
+        if (!projectRepository.existsById(projectId)) {
+            return Optional.empty();
+        }
+
+        Set<Long> inventoryIds = new LinkedHashSet<>();
+        lines.forEach(line -> inventoryIds.add(line.getInventoryId()));
+        Map<Long, Inventory> inventories = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.findAllByIdForUpdate(inventoryIds)) {
+            inventories.put(inventory.getId(), inventory);
+        }
+        if (inventories.size() != inventoryIds.size()) {
+            inventoryIds.removeAll(inventories.keySet());
+            throw new IllegalArgumentException("Inventory not found: " + inventoryIds);
+        }
+
+        // The rows are locked, so stock can be worked out in memory and written back once per item
+        List<Object[]> batchArgs = new ArrayList<>(lines.size());
+        List<StockMovement> movements = new ArrayList<>(lines.size());
+        List<Map<String, Object>> allocations = new ArrayList<>(lines.size());
+        BigDecimal totalCost = BigDecimal.ZERO;
+        int shortageLines = 0;
+        for (AllocationLine line : lines) {
+            Inventory inventory = inventories.get(line.getInventoryId());
+            int requiredQuantity = line.getRequiredQuantity();
+            int allocatedQuantity = Math.min(requiredQuantity, Math.max(inventory.getQuantity(), 0));
+            int shortageQuantity = requiredQuantity - allocatedQuantity;
+            BigDecimal unitPrice = inventory.getPerQuantityPrice();
+            BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(allocatedQuantity));
+
+            inventory.setQuantity(inventory.getQuantity() - allocatedQuantity);
+            movements.add(new StockMovement(inventory.getId(), -allocatedQuantity,
+                    StockMovement.Reason.ALLOCATION, projectId));
+            batchArgs.add(new Object[] {projectId, inventory.getId(), requiredQuantity, allocatedQuantity,
+                    shortageQuantity, unitPrice, totalPrice});
+            totalCost = totalCost.add(totalPrice);
+            if (shortageQuantity > 0) {
+                shortageLines++;
+            }
+
+            Map<String, Object> allocation = new HashMap<>();
+            allocation.put("inventoryId", inventory.getId());
+            allocation.put("name", inventory.getName());
+            allocation.put("requiredQuantity", requiredQuantity);
+            allocation.put("allocatedQuantity", allocatedQuantity);
+            allocation.put("shortageQuantity", shortageQuantity);
+            allocation.put("unitPrice", unitPrice);
+            allocation.put("totalPrice", totalPrice);
+            allocations.add(allocation);
+        }
+
+        // IDENTITY ids keep Hibernate from batching these inserts, so write them as one JDBC batch
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, batchArgs);
+        stockLedgerService.recordAll(movements);
+
+        projectCostCounterService.recordInventoryCost(projectId, totalCost);
+        reportCacheService.invalidateInventory();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("projectId", projectId);
+        result.put("lines", allocations);
+        result.put("totalPrice", totalCost);
+        result.put("shortageLines", shortageLines);
+        return Optional.of(result);
+    }
+
+    /**
+     * Removes a project inventory item and returns its allocated quantity to stock.
+     * Returns false when the item does not exist or was removed concurrently.
+     */
+    public boolean release(Long itemId) {
+        Optional<ProjectInventoryItem> itemOpt = projectInventoryItemRepository.findById(itemId);
+        if (itemOpt.isEmpty()) {
+            return false;
+        }
+        ProjectInventoryItem item = itemOpt.get();
+        Long projectId = item.getProject().getId();
+        Long inventoryId = item.getInventory().getId();
+
+        if (projectInventoryItemRepository.deleteItemById(itemId) == 0) {
+            return false;
+        }
+        if (item.getAllocatedQuantity() != null && item.getAllocatedQuantity() > 0) {
+            inventoryRepository.incrementQuantity(inventoryId, item.getAllocatedQuantity());
+            stockLedgerService.record(inventoryId, item.getAllocatedQuantity(), StockMovement.Reason.RELEASE, projectId);
+            shortageBackfillService.backfill(inventoryId);
+        }
+
+        projectCostCounterService.recordInventoryCost(projectId, item.getTotalPrice().negate());
+        reportCacheService.invalidateInventory();
+        return true;
+    }
+
+    /**
+     * Takes up to {@code requiredQuantity} units; returns the quantity taken, or -1 when the
+     * inventory item does not exist.
+     */
+    private int takeStock(Long inventoryId, int requiredQuantity) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            Integer available = inventoryRepository.findQuantityById(inventoryId);
+            if (available == null) {
+                return -1;
+            }
+            int allocated = Math.min(requiredQuantity, Math.max(available, 0));
+            if (allocated == 0 || inventoryRepository.decrementQuantity(inventoryId, allocated) == 1) {
+                return allocated;
+            }
+            logger.debug("Stock of inventory {} changed during allocation, retrying (attempt {})",
+                    inventoryId, attempt + 1);
+        }
+        throw new IllegalStateException("Inventory " + inventoryId + " is being allocated by other requests, please retry");
+    }
+}
@@ -0,0 +1,207 @@
+package org.erp.service;
+
+import org.erp.entity.Inventory;
+import org.erp.repository.InventoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, read-through cache of inventory reference data (name, unit price, supplier, dates),
+ * keyed by id and by business {@code inventoryId}. Quantities are deliberately not cached; callers
+ * that need stock read it from the database. Entries expire after a TTL and are evicted by
+ * {@link InventoryService} when an inventory request changes an item.
+ */
+@Service
+public class InventoryCatalogCache {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Value("${erp.inventory.catalog-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${erp.inventory.catalog-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Bumped on every invalidation; a load is only cached if no invalidation ran while it was in flight
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private final Map<String, Long> idsByInventoryId = new HashMap<>();
+
+    private final Map<Long, CatalogEntry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CatalogEntry> eldest) {
+            if (size() > maxEntries) {
+                idsByInventoryId.remove(eldest.getValue().getInventoryId());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public static final class CatalogEntry {
+        private final Long id;
+        private final String inventoryId;
+        private final String name;
+        private final LocalDate productionDate;
+        private final LocalDate expiryDate;
+        private final BigDecimal perQuantityPrice;
+        private final String billNumber;
+        private final String supplierName;
+        private final LocalDate createdDate;
+        private final long loadedAt = System.nanoTime();
+
+        private CatalogEntry(Inventory inventory) {
+            this.id = inventory.getId();
+            this.inventoryId = inventory.getInventoryId();
+            this.name = inventory.getName();
+            this.productionDate = inventory.getProductionDate();
+            this.expiryDate = inventory.getExpiryDate();
+            this.perQuantityPrice = inventory.getPerQuantityPrice();
+            this.billNumber = inventory.getBillNumber();
+            this.supplierName = inventory.getSupplierName();
+            this.createdDate = inventory.getCreatedDate();
+        }
+
+        public Long getId() { return id; }
+        public String getInventoryId() { return inventoryId; }
+        public String getName() { return name; }
+        public LocalDate getExpiryDate() { return expiryDate; }
+        public BigDecimal getPerQuantityPrice() { return perQuantityPrice; }
+        public String getSupplierName() { return supplierName; }
+
+        /**
+         * A detached {@link Inventory} built from the cached fields and a quantity read by the caller.
+         */
+        public Inventory toInventory(Integer quantity) {
+            Inventory inventory = new Inventory();
+            inventory.setId(id);
+            inventory.setInventoryId(inventoryId);
+            inventory.setName(name);
+            inventory.setProductionDate(productionDate);
+            inventory.setExpiryDate(expiryDate);
+            inventory.setPerQuantityPrice(perQuantityPrice);
+            inventory.setQuantity(quantity);
+            inventory.setBillNumber(billNumber);
+            inventory.setSupplierName(supplierName);
+            inventory.setCreatedDate(createdDate);
+            return inventory;
+        }
+    }
+
+    public Optional<CatalogEntry> get(Long id) {
+        return Optional.ofNullable(getAll(List.of(id)).get(id));
+    }
+
+    /**
+     * Entries for the ids that exist; every miss is loaded with one {@code findAllById}.
+     */
+    public Map<Long, CatalogEntry> getAll(Collection<Long> ids) {
+        Map<Long, CatalogEntry> found = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long now = System.nanoTime();
+        synchronized (entries) {
+            for (Long id : ids) {
+                CatalogEntry entry = entries.get(id);
+                if (entry != null && !isExpired(entry, now)) {
+                    found.put(id, entry);
+                } else if (id != null) {
+                    missing.add(id);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            long version = dataVersion.get();
+            List<CatalogEntry> loaded = new ArrayList<>();
+            for (Inventory inventory : inventoryRepository.findAllById(missing)) {
+                CatalogEntry entry = new CatalogEntry(inventory);
+                loaded.add(entry);
+                found.put(entry.getId(), entry);
+            }
+            store(loaded, version);
+        }
+        return found;
+    }
+
+    public Optional<CatalogEntry> getByInventoryId(String inventoryId) {
+        Long id;
+        synchronized (entries) {
+            id = idsByInventoryId.get(inventoryId);
+        }
+        if (id != null) {
+            return get(id);
+        }
+
+        long version = dataVersion.get();
+        Optional<CatalogEntry> entry = inventoryRepository.findByInventoryId(inventoryId).map(CatalogEntry::new);
+        entry.ifPresent(loaded -> store(List.of(loaded), version));
+        return entry;
+    }
+
+    /**
+     * An inventory item was created, updated or deleted.
+     */
+    public void invalidate(Long id, String inventoryId) {
+        evict(id, inventoryId);
+        // Evict again once the change is visible, so a read of pre-commit data is not kept
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id, inventoryId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long id, String inventoryId) {
+        synchronized (entries) {
+            dataVersion.incrementAndGet();
+            if (id != null) {
+                CatalogEntry removed = entries.remove(id);
+                if (removed != null) {
+                    idsByInventoryId.remove(removed.getInventoryId());
+                }
+            }
+            if (inventoryId != null) {
+                Long mappedId = idsByInventoryId.remove(inventoryId);
+                if (mappedId != null) {
+                    entries.remove(mappedId);
+                }
+            }
+        }
+    }
+
+    private void store(List<CatalogEntry> loaded, long version) {
+        synchronized (entries) {
+            if (dataVersion.get() != version) {
+                return;
+            }
+            for (CatalogEntry entry : loaded) {
+                entries.put(entry.getId(), entry);
+                idsByInventoryId.put(entry.getInventoryId(), entry.getId());
+            }
+        }
+    }
+
+    private boolean isExpired(CatalogEntry entry, long now) {
+        return now - entry.loadedAt > TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+}
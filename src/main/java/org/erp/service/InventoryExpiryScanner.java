@@ -0,0 +1,184 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.Inventory;
+import org.erp.entity.InventoryExpiryWatermark;
+import org.erp.entity.Notification;
+import org.erp.entity.User;
+import org.erp.repository.InventoryExpiryWatermarkRepository;
+import org.erp.repository.InventoryRepository;
+import org.erp.repository.NotificationRepository;
+import org.erp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Raises notifications when stock enters an expiry window ({@code erp.inventory.expiry.windows}).
+ * For each window the scanner walks the {@code (expiry_date, id)} index from a stored watermark up to
+ * today + window, and picks up items added since the last run through the primary key, so a run
+ * reads only the items that newly entered a window. Each page commits its notifications together
+ * with the advanced watermark.
+ */
+@Service
+public class InventoryExpiryScanner {
+
+    private static final Logger logger = LogManager.getLogger(InventoryExpiryScanner.class);
+
+    private static final int MAX_ITEMS_PER_MESSAGE = 20;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryExpiryWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${erp.inventory.expiry.windows:30,7,1}")
+    private int[] windows;
+
+    @Value("${erp.inventory.expiry.notify-roles:SUPER_ADMIN,ADMIN}")
+    private String[] notifyRoles;
+
+    @Value("${erp.inventory.expiry.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Returns the number of items alerted per window.
+     */
+    @Scheduled(fixedDelayString = "${erp.inventory.expiry.scan-interval-ms:3600000}",
+               initialDelayString = "${erp.inventory.expiry.scan-initial-delay-ms:60000}")
+    public Map<Integer, Integer> scan() {
+        LocalDate today = LocalDate.now();
+        Long maxId = inventoryRepository.findMaxId();
+        Map<Long, User> recipientsById = new LinkedHashMap<>();
+        for (String role : notifyRoles) {
+            userRepository.findByRolesName(role.trim()).forEach(user -> recipientsById.putIfAbsent(user.getId(), user));
+        }
+        List<User> recipients = new ArrayList<>(recipientsById.values());
+
+        // Smallest window first, so an item entering several windows at once is alerted only for the nearest
+        int[] ordered = Arrays.stream(windows).distinct().sorted().toArray();
+        Set<Long> alertedThisRun = new HashSet<>();
+        Map<Integer, Integer> alerted = new LinkedHashMap<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (int window : ordered) {
+            int[] count = {0};
+            boolean more = true;
+            while (more) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                        scanPage(window, today, maxId, recipients, alertedThisRun, count)));
+            }
+            alerted.put(window, count[0]);
+        }
+
+        if (alerted.values().stream().anyMatch(count -> count > 0)) {
+            logger.info("Expiry scan raised alerts for {} (window days -> items)", alerted);
+        }
+        return alerted;
+    }
+
+    /**
+     * Handles one page for one window; returns true while there may be more to scan.
+     */
+    private boolean scanPage(int window, LocalDate today, Long maxId, List<User> recipients,
+                             Set<Long> alertedThisRun, int[] count) {
+        LocalDate horizon = today.plusDays(window);
+        InventoryExpiryWatermark watermark = watermarkRepository.findByWindowDays(window)
+                .orElseGet(() -> watermarkRepository.save(
+                        // A new window starts just before today and covers every existing item from there
+                        new InventoryExpiryWatermark(window, today.minusDays(1), Long.MAX_VALUE, maxId)));
+
+        List<Inventory> items;
+        boolean more;
+        if (watermark.getLastInventoryId() < maxId) {
+            // Items added since the last run that expire inside the part of the window already walked
+            items = inventoryRepository.findAddedExpiringBefore(watermark.getLastInventoryId(), maxId, today,
+                    watermark.getScannedExpiryDate(), watermark.getScannedInventoryId(), batchSize);
+            watermark.setLastInventoryId(items.size() < batchSize ? maxId : items.get(items.size() - 1).getId());
+            more = true;
+        } else if (watermark.getScannedExpiryDate().isBefore(horizon)) {
+            items = inventoryRepository.findExpiringAfter(today, horizon, watermark.getScannedExpiryDate(),
+                    watermark.getScannedInventoryId(), batchSize);
+            more = items.size() == batchSize;
+            if (more) {
+                Inventory last = items.get(items.size() - 1);
+                watermark.setScannedExpiryDate(last.getExpiryDate());
+                watermark.setScannedInventoryId(last.getId());
+            } else {
+                watermark.setScannedExpiryDate(horizon);
+                watermark.setScannedInventoryId(Long.MAX_VALUE);
+            }
+        } else {
+            return false;
+        }
+
+        List<Inventory> newlyAlerted = items.stream()
+                .filter(item -> alertedThisRun.add(item.getId()))
+                .collect(Collectors.toList());
+        if (!newlyAlerted.isEmpty() && !recipients.isEmpty()) {
+            notificationRepository.saveAll(buildNotifications(window, newlyAlerted, recipients));
+        }
+        count[0] += newlyAlerted.size();
+
+        watermark.setUpdatedAt(LocalDateTime.now());
+        watermarkRepository.save(watermark);
+        return more;
+    }
+
+    // One notification per recipient for the whole page
+    private List<Notification> buildNotifications(int window, List<Inventory> items, List<User> recipients) {
+        StringBuilder message = new StringBuilder()
+                .append(items.size()).append(items.size() == 1 ? " item expires" : " items expire")
+                .append(" within ").append(window).append(window == 1 ? " day: " : " days: ");
+        for (int i = 0; i < Math.min(items.size(), MAX_ITEMS_PER_MESSAGE); i++) {
+            Inventory item = items.get(i);
+            if (i > 0) {
+                message.append(", ");
+            }
+            message.append(item.getInventoryId()).append(' ').append(item.getName())
+                   .append(" (").append(item.getExpiryDate()).append(", qty ").append(item.getQuantity()).append(')');
+        }
+        if (items.size() > MAX_ITEMS_PER_MESSAGE) {
+            message.append(" and ").append(items.size() - MAX_ITEMS_PER_MESSAGE).append(" more");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>(recipients.size());
+        for (User recipient : recipients) {
+            Notification notification = new Notification();
+            notification.setRecipient(recipient);
+            notification.setTitle("Stock expiring within " + window + (window == 1 ? " day" : " days"));
+            notification.setMessage(message.toString());
+            notification.setType(Notification.NotificationType.EMPLOYEE_REQUEST_APPROVAL);
+            notification.setRead(false);
+            notification.setCreatedAt(now);
+            notifications.add(notification);
+        }
+        return notifications;
+    }
+}
@@ -0,0 +1,362 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.Inventory;
+import org.erp.entity.InventoryRequest;
+import org.erp.entity.Notification;
+import org.erp.entity.StockMovement;
+import org.erp.repository.InventoryRepository;
+import org.erp.repository.InventoryRequestRepository;
+import org.erp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Approves or rejects many inventory requests at once. Requests are decided in chunks, each in its own
+ * transaction: the chunk is loaded and locked with one query, inventory rows, request statuses and
+ * notifications are each written as one JDBC batch, and requesters are resolved with one user lookup.
+ * A chunk that fails to apply is rolled back and reported as failed without stopping the others.
+ */
+@Service
+public class InventoryRequestDecisionService {
+
+    private static final Logger logger = LogManager.getLogger(InventoryRequestDecisionService.class);
+
+    public static final int MAX_REQUESTS = 1000;
+
+    private static final String NOTIFICATION_TITLE = "Inventory Request Update";
+
+    private static final String INSERT_INVENTORY_SQL =
+            "INSERT INTO inventory (inventory_id, name, production_date, expiry_date, quantity, per_quantity_price, " +
+            "total_price, bill_number, supplier_name, created_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_INVENTORY_SQL =
+            "UPDATE inventory SET name = ?, production_date = ?, expiry_date = ?, quantity = ?, per_quantity_price = ?, " +
+            "total_price = ?, bill_number = ?, supplier_name = ? WHERE id = ?";
+
+    private static final String DELETE_INVENTORY_SQL = "DELETE FROM inventory WHERE id = ?";
+
+    private static final String UPDATE_REQUEST_SQL =
+            "UPDATE inventory_requests SET status = ?, approved_by = ?, approval_date = ?, rejection_reason = ? " +
+            "WHERE id = ?";
+
+    private static final String INSERT_NOTIFICATION_SQL =
+            "INSERT INTO notifications (recipient_id, title, message, type, is_read, created_at) " +
+            "VALUES (?, ?, ?, ?, false, ?)";
+
+    public enum Decision {
+        APPROVE,
+        REJECT;
+
+        public static Decision fromParameter(String value) {
+            for (Decision decision : values()) {
+                if (decision.name().equalsIgnoreCase(value.trim())) {
+                    return decision;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported decision: " + value);
+        }
+    }
+
+    @Autowired
+    private InventoryRequestRepository inventoryRequestRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InventoryCatalogCache inventoryCatalogCache;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private ShortageBackfillService shortageBackfillService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${erp.inventory.requests.bulk-chunk-size:100}")
+    private int chunkSize;
+
+    /**
+     * Returns one result per distinct request id, in the order given, with the counts per outcome.
+     */
+    public Map<String, Object> decide(List<Long> requestIds, Decision decision, String reason, String decidedBy) {
+        if (requestIds == null || requestIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one request id is required");
+        }
+        Set<Long> ids = new LinkedHashSet<>(requestIds);
+        ids.remove(null);
+        if (ids.size() > MAX_REQUESTS) {
+            throw new IllegalArgumentException("At most " + MAX_REQUESTS + " requests can be decided at once");
+        }
+        if (decision == Decision.REJECT && (reason == null || reason.isBlank())) {
+            throw new IllegalArgumentException("A reason is required to reject requests");
+        }
+
+        List<Long> ordered = new ArrayList<>(ids);
+        Map<Long, Map<String, Object>> results = new LinkedHashMap<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        boolean inventoryChanged = false;
+
+        for (int start = 0; start < ordered.size(); start += chunkSize) {
+            List<Long> chunk = ordered.subList(start, Math.min(start + chunkSize, ordered.size()));
+            try {
+                Map<Long, Map<String, Object>> chunkResults = transactionTemplate.execute(status ->
+                        decideChunk(chunk, decision, reason, decidedBy));
+                results.putAll(chunkResults);
+                inventoryChanged |= decision == Decision.APPROVE
+                        && chunkResults.values().stream().anyMatch(result -> "APPROVED".equals(result.get("status")));
+            } catch (RuntimeException e) {
+                // Earlier chunks are already committed, so report this one and keep going
+                logger.warn("Bulk {} of inventory requests {} rolled back", decision, chunk, e);
+                String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                for (Long id : chunk) {
+                    results.put(id, result(id, "FAILED", "Chunk rolled back: " + cause));
+                }
+            }
+        }
+
+        if (inventoryChanged) {
+            reportCacheService.invalidateInventory();
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String status : new String[] {"APPROVED", "REJECTED", "SKIPPED", "NOT_FOUND", "FAILED"}) {
+            counts.put(status, 0);
+        }
+        results.values().forEach(result -> counts.merge((String) result.get("status"), 1, Integer::sum));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("decision", decision);
+        response.put("results", new ArrayList<>(results.values()));
+        response.put("counts", counts);
+        return response;
+    }
+
+    private Map<Long, Map<String, Object>> decideChunk(List<Long> chunk, Decision decision, String reason,
+                                                       String decidedBy) {
+        Map<Long, InventoryRequest> requestsById = new HashMap<>();
+        for (InventoryRequest request : inventoryRequestRepository.findAllByIdForUpdate(chunk)) {
+            requestsById.put(request.getId(), request);
+        }
+
+        Map<Long, Map<String, Object>> results = new LinkedHashMap<>();
+        List<InventoryRequest> decided = new ArrayList<>();
+        for (Long id : chunk) {
+            InventoryRequest request = requestsById.get(id);
+            if (request == null) {
+                results.put(id, result(id, "NOT_FOUND", "Request not found"));
+            } else if (request.getStatus() != InventoryRequest.RequestStatus.PENDING) {
+                results.put(id, result(id, "SKIPPED", "Request is already " + request.getStatus()));
+            } else if (validate(request, decision) != null) {
+                results.put(id, result(id, "FAILED", validate(request, decision)));
+            } else {
+                decided.add(request);
+                results.put(id, result(id, decision == Decision.APPROVE ? "APPROVED" : "REJECTED", null));
+            }
+        }
+        if (decided.isEmpty()) {
+            return results;
+        }
+
+        if (decision == Decision.APPROVE) {
+            applyInventoryChanges(decided);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp decidedAt = Timestamp.valueOf(now);
+        InventoryRequest.RequestStatus newStatus = decision == Decision.APPROVE
+                ? InventoryRequest.RequestStatus.APPROVED : InventoryRequest.RequestStatus.REJECTED;
+        List<Object[]> statusArgs = new ArrayList<>(decided.size());
+        for (InventoryRequest request : decided) {
+            statusArgs.add(new Object[] {newStatus.name(), decidedBy, decidedAt,
+                    decision == Decision.REJECT ? reason : null, request.getId()});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_REQUEST_SQL, statusArgs);
+
+        insertNotifications(decided, decision, reason, decidedAt);
+        return results;
+    }
+
+    // Returns why an approval cannot be applied, or null
+    private String validate(InventoryRequest request, Decision decision) {
+        if (decision == Decision.REJECT) {
+            return null;
+        }
+        switch (request.getRequestType()) {
+            case CREATE:
+                return hasInventoryFields(request) ? null : "Create request is missing required inventory fields";
+            case UPDATE:
+                if (request.getTargetInventoryId() == null) {
+                    return "Update request has no target inventory";
+                }
+                return hasInventoryFields(request) ? null : "Update request is missing required inventory fields";
+            default:
+                return null;
+        }
+    }
+
+    private boolean hasInventoryFields(InventoryRequest request) {
+        return request.getName() != null && request.getProductionDate() != null && request.getExpiryDate() != null
+                && request.getQuantity() != null && request.getPerQuantityPrice() != null
+                && request.getBillNumber() != null && request.getSupplierName() != null;
+    }
+
+    private void applyInventoryChanges(List<InventoryRequest> approved) {
+        // Lock the items being edited or deleted, so the ledger deltas are taken against the quantities replaced
+        Set<Long> targetIds = new HashSet<>();
+        for (InventoryRequest request : approved) {
+            if (request.getRequestType() != InventoryRequest.RequestType.CREATE && request.getTargetInventoryId() != null) {
+                targetIds.add(request.getTargetInventoryId());
+            }
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        if (!targetIds.isEmpty()) {
+            for (Inventory inventory : inventoryRepository.findAllByIdForUpdate(targetIds)) {
+                quantities.put(inventory.getId(), inventory.getQuantity());
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<StockMovement> movements = new ArrayList<>();
+        Map<String, InventoryRequest> creates = new HashMap<>();
+        for (InventoryRequest request : approved) {
+            Long targetId = request.getTargetInventoryId();
+            switch (request.getRequestType()) {
+                case CREATE:
+                    inserts.add(new Object[] {request.getInventoryId(), request.getName(), request.getProductionDate(),
+                            request.getExpiryDate(), request.getQuantity(), request.getPerQuantityPrice(),
+                            totalPrice(request), request.getBillNumber(), request.getSupplierName(), today});
+                    creates.put(request.getInventoryId(), request);
+                    break;
+                case UPDATE:
+                    updates.add(new Object[] {request.getName(), request.getProductionDate(), request.getExpiryDate(),
+                            request.getQuantity(), request.getPerQuantityPrice(), totalPrice(request),
+                            request.getBillNumber(), request.getSupplierName(), targetId});
+                    // Requests in the same chunk apply in order, so each delta is against the previous one's quantity
+                    Integer before = quantities.get(targetId);
+                    if (before != null) {
+                        movements.add(new StockMovement(targetId, request.getQuantity() - before,
+                                StockMovement.Reason.ADMIN_EDIT, request.getId()));
+                        quantities.put(targetId, request.getQuantity());
+                    }
+                    break;
+                case DELETE:
+                    // As with a single approval, a delete request without a target is approved as a no-op
+                    if (targetId != null) {
+                        deletes.add(new Object[] {targetId});
+                        Integer removed = quantities.remove(targetId);
+                        if (removed != null) {
+                            movements.add(new StockMovement(targetId, -removed,
+                                    StockMovement.Reason.ADMIN_DELETE, request.getId()));
+                        }
+                    }
+                    break;
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_INVENTORY_SQL, inserts);
+            for (Object[] row : inventoryRepository.findIdsByInventoryIdIn(creates.keySet())) {
+                InventoryRequest request = creates.get((String) row[0]);
+                movements.add(new StockMovement((Long) row[1], request.getQuantity(),
+                        StockMovement.Reason.ADMIN_CREATE, request.getId()));
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_INVENTORY_SQL, updates);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_INVENTORY_SQL, deletes);
+        }
+        stockLedgerService.recordAll(movements);
+
+        // Edits that added stock may fill waiting shortages; the rows are still locked from above
+        Set<Long> restocked = new LinkedHashSet<>();
+        for (StockMovement movement : movements) {
+            if (movement.getReason() == StockMovement.Reason.ADMIN_EDIT && movement.getQuantityDelta() > 0) {
+                restocked.add(movement.getInventoryItemId());
+            }
+        }
+        restocked.forEach(inventoryId -> shortageBackfillService.backfill(inventoryId));
+
+        for (InventoryRequest request : approved) {
+            inventoryCatalogCache.invalidate(request.getTargetInventoryId(), request.getInventoryId());
+        }
+    }
+
+    // Same total the Inventory entity derives when it is saved
+    private BigDecimal totalPrice(InventoryRequest request) {
+        return request.getPerQuantityPrice().multiply(BigDecimal.valueOf(request.getQuantity()));
+    }
+
+    private void insertNotifications(List<InventoryRequest> decided, Decision decision, String reason,
+                                     Timestamp createdAt) {
+        Set<String> usernames = new HashSet<>();
+        decided.forEach(request -> usernames.add(request.getRequestedBy()));
+        Map<String, Long> userIds = new HashMap<>();
+        for (Object[] row : userRepository.findIdsByUsernameIn(usernames)) {
+            userIds.put((String) row[0], (Long) row[1]);
+        }
+
+        List<Object[]> notifications = new ArrayList<>(decided.size());
+        for (InventoryRequest request : decided) {
+            Long recipientId = userIds.get(request.getRequestedBy());
+            if (recipientId == null) {
+                logger.warn("No user {} to notify about inventory request {}", request.getRequestedBy(), request.getId());
+                continue;
+            }
+            String message = "Your inventory " + request.getRequestType().toString().toLowerCase() +
+                    " request for '" + request.getName() + "' has been " +
+                    (decision == Decision.APPROVE ? "approved." : "rejected. Reason: " + reason);
+            notifications.add(new Object[] {recipientId, NOTIFICATION_TITLE, message,
+                    Notification.NotificationType.EMPLOYEE_REQUEST_APPROVED.name(), createdAt});
+        }
+        if (!notifications.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_NOTIFICATION_SQL, notifications);
+        }
+    }
+
+    private static Map<String, Object> result(Long requestId, String status, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requestId", requestId);
+        result.put("status", status);
+        if (message != null) {
+            result.put("message", message);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,166 @@
+package org.erp.service;
+
+import org.erp.entity.Inventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtered inventory search with keyset pagination. Name matching uses the pg_trgm index on
+ * {@code lower(name)}; ordering and the cursor use the {@code (name, id)} and {@code (expiry_date, id)}
+ * indexes, so each page costs the same however deep the caller has paged.
+ */
+@Service
+@Transactional(readOnly = true)
+public class InventorySearchService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    public enum NameMatch {
+        PREFIX,
+        CONTAINS;
+
+        public static NameMatch fromParameter(String value) {
+            for (NameMatch match : values()) {
+                if (match.name().equalsIgnoreCase(value.trim())) {
+                    return match;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported name match: " + value);
+        }
+    }
+
+    public enum SortOrder {
+        NAME("i.name"),
+        EXPIRY("i.expiry_date");
+
+        private final String column;
+
+        SortOrder(String column) {
+            this.column = column;
+        }
+
+        public static SortOrder fromParameter(String value) {
+            for (SortOrder order : values()) {
+                if (order.name().equalsIgnoreCase(value.trim())) {
+                    return order;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort: " + value);
+        }
+    }
+
+    private static final RowMapper<Inventory> INVENTORY_ROW_MAPPER = (resultSet, rowNum) -> {
+        Inventory inventory = new Inventory();
+        inventory.setId(resultSet.getLong("id"));
+        inventory.setInventoryId(resultSet.getString("inventory_id"));
+        inventory.setName(resultSet.getString("name"));
+        inventory.setProductionDate(resultSet.getObject("production_date", LocalDate.class));
+        inventory.setExpiryDate(resultSet.getObject("expiry_date", LocalDate.class));
+        inventory.setQuantity(resultSet.getInt("quantity"));
+        inventory.setPerQuantityPrice(resultSet.getBigDecimal("per_quantity_price"));
+        inventory.setTotalPrice(resultSet.getBigDecimal("total_price"));
+        inventory.setBillNumber(resultSet.getString("bill_number"));
+        inventory.setSupplierName(resultSet.getString("supplier_name"));
+        inventory.setCreatedDate(resultSet.getObject("created_date", LocalDate.class));
+        return inventory;
+    };
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns up to {@code limit} items after {@code cursor} and the cursor for the next page,
+     * which is null on the last page. A cursor is only valid with the sort it was issued for.
+     */
+    public Map<String, Object> search(String name, NameMatch nameMatch, String supplier, LocalDate expiresFrom,
+                                      LocalDate expiresTo, Integer minQuantity, SortOrder sort, String cursor,
+                                      Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (expiresFrom != null && expiresTo != null && expiresFrom.isAfter(expiresTo)) {
+            throw new IllegalArgumentException("expiresFrom must be on or before expiresTo");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT i.* FROM inventory i WHERE 1 = 1");
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (name != null && !name.isBlank()) {
+            String escaped = escapeLike(name.trim().toLowerCase());
+            sql.append(" AND lower(i.name) LIKE :namePattern");
+            parameters.addValue("namePattern", nameMatch == NameMatch.PREFIX ? escaped + "%" : "%" + escaped + "%");
+        }
+        if (supplier != null && !supplier.isBlank()) {
+            sql.append(" AND i.supplier_name = :supplier");
+            parameters.addValue("supplier", supplier.trim());
+        }
+        if (expiresFrom != null) {
+            sql.append(" AND i.expiry_date >= :expiresFrom");
+            parameters.addValue("expiresFrom", expiresFrom);
+        }
+        if (expiresTo != null) {
+            sql.append(" AND i.expiry_date <= :expiresTo");
+            parameters.addValue("expiresTo", expiresTo);
+        }
+        if (minQuantity != null) {
+            sql.append(" AND i.quantity >= :minQuantity");
+            parameters.addValue("minQuantity", minQuantity);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor, sort);
+            sql.append(" AND (").append(sort.column).append(", i.id) > (:afterValue, :afterId)");
+            parameters.addValue("afterValue", sort == SortOrder.EXPIRY ? LocalDate.parse(position[0]) : position[0]);
+            parameters.addValue("afterId", Long.valueOf(position[1]));
+        }
+        sql.append(" ORDER BY ").append(sort.column).append(", i.id LIMIT :rowLimit");
+        parameters.addValue("rowLimit", pageSize + 1);
+
+        List<Inventory> items = jdbcTemplate.query(sql.toString(), parameters, INVENTORY_ROW_MAPPER);
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = items.subList(0, pageSize);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        result.put("hasMore", hasMore);
+        result.put("nextCursor", hasMore ? encodeCursor(items.get(items.size() - 1), sort) : null);
+        return result;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String encodeCursor(Inventory last, SortOrder sort) {
+        String value = sort == SortOrder.EXPIRY ? last.getExpiryDate().toString() : last.getName();
+        String position = sort.name() + "\n" + last.getId() + "\n" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns {sort value, id}
+    private static String[] decodeCursor(String cursor, SortOrder sort) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 3 || !parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor does not belong to this sort order");
+        }
+        return new String[] {parts[2], parts[1]};
+    }
+}
@@ -2,6 +2,7 @@ package org.erp.service;
 
 import org.erp.entity.Inventory;
 import org.erp.entity.InventoryRequest;
+import org.erp.entity.StockMovement;
 import org.erp.repository.InventoryRepository;
 import org.erp.repository.InventoryRequestRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,20 +26,40 @@ public class InventoryService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private BusinessKeyAllocator businessKeyAllocator;
+    
+    @Autowired
+    private InventoryCatalogCache inventoryCatalogCache;
+    
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    
+    @Autowired
+    private ShortageBackfillService shortageBackfillService;
+    
     public List<Inventory> getAllInventory() {
         return inventoryRepository.findAll();
     }
     
+    /**
+     * Reference data comes from the catalog cache; the quantity is always read from the database.
+     */
     public Optional<Inventory> getInventoryByInventoryId(String inventoryId) {
-        return inventoryRepository.findByInventoryId(inventoryId);
+        Optional<InventoryCatalogCache.CatalogEntry> entry = inventoryCatalogCache.getByInventoryId(inventoryId);
+        if (entry.isEmpty()) {
+            return Optional.empty();
+        }
+        Integer quantity = inventoryRepository.findQuantityById(entry.get().getId());
+        if (quantity == null) {
+            inventoryCatalogCache.invalidate(entry.get().getId(), inventoryId);
+            return Optional.empty();
+        }
+        return Optional.of(entry.get().toInventory(quantity));
     }
     
     public String generateInventoryId() {
-        Integer maxNumber = inventoryRepository.findMaxInventoryNumber();
-        if (maxNumber == null) {
-            maxNumber = 0;
-        }
-        return "INV" + String.format("%04d", maxNumber + 1);
+        return businessKeyAllocator.nextInventoryId();
     }
     
     // Request-based operations (require approval)
@@ -151,13 +172,18 @@ public class InventoryService {
         inventory.setSupplierName(request.getSupplierName());
         inventory.setCreatedDate(LocalDate.now());
         
-        inventoryRepository.save(inventory);
+        Inventory savedInventory = inventoryRepository.save(inventory);
+        stockLedgerService.record(savedInventory.getId(), savedInventory.getQuantity(),
+                StockMovement.Reason.ADMIN_CREATE, request.getId());
+        inventoryCatalogCache.invalidate(savedInventory.getId(), savedInventory.getInventoryId());
     }
     
     private void executeUpdateInventory(InventoryRequest request) {
-        Optional<Inventory> inventoryOpt = inventoryRepository.findById(request.getTargetInventoryId());
+        // Locked so an allocation cannot slip in between reading the old quantity and overwriting it
+        Optional<Inventory> inventoryOpt = inventoryRepository.findByIdForUpdate(request.getTargetInventoryId());
         if (inventoryOpt.isPresent()) {
             Inventory inventory = inventoryOpt.get();
+            int quantityDelta = request.getQuantity() - inventory.getQuantity();
             inventory.setName(request.getName());
             inventory.setProductionDate(request.getProductionDate());
             inventory.setExpiryDate(request.getExpiryDate());
@@ -167,12 +193,23 @@ public class InventoryService {
             inventory.setSupplierName(request.getSupplierName());
             
             inventoryRepository.save(inventory);
+            stockLedgerService.record(inventory.getId(), quantityDelta, StockMovement.Reason.ADMIN_EDIT, request.getId());
+            inventoryCatalogCache.invalidate(inventory.getId(), inventory.getInventoryId());
+            if (quantityDelta > 0) {
+                shortageBackfillService.backfill(inventory.getId());
+            }
         }
     }
     
     private void executeDeleteInventory(InventoryRequest request) {
         if (request.getTargetInventoryId() != null) {
+            Optional<Inventory> inventoryOpt = inventoryRepository.findByIdForUpdate(request.getTargetInventoryId());
+            if (inventoryOpt.isPresent()) {
+                stockLedgerService.record(inventoryOpt.get().getId(), -inventoryOpt.get().getQuantity(),
+                        StockMovement.Reason.ADMIN_DELETE, request.getId());
+            }
             inventoryRepository.deleteById(request.getTargetInventoryId());
+            inventoryCatalogCache.invalidate(request.getTargetInventoryId(), request.getInventoryId());
         }
     }
     
@@ -25,6 +25,9 @@ public class MaterialRequestFormService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private BusinessKeyAllocator businessKeyAllocator;
+    
     @Transactional(readOnly = true)
     public List<MaterialRequestForm> getAllMRFs() {
         return mrfRepository.findAll();
@@ -63,11 +66,7 @@ public class MaterialRequestFormService {
     }
     
     public String generateMRFNumber() {
-        Integer maxNumber = mrfRepository.findMaxMrfNumber();
-        if (maxNumber == null) {
-            maxNumber = 0;
-        }
-        return "MRF" + String.format("%04d", maxNumber + 1);
+        return businessKeyAllocator.nextMrfNumber();
     }
     
     @Transactional
@@ -5,11 +5,16 @@ import org.erp.entity.User;
 import org.erp.repository.NotificationRepository;
 import org.erp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -20,6 +25,9 @@ public class NotificationService {
     
     @Autowired
     private UserRepository userRepository;
+    
+    @Value("${erp.budget.alert-roles:SUPER_ADMIN,ADMIN}")
+    private String[] budgetAlertRoles;
 
     public List<Notification> getUserNotifications(User user) {
         return notificationRepository.findByRecipientOrderByCreatedAtDesc(user);
@@ -94,4 +102,31 @@ public class NotificationService {
         superAdmins.forEach(superAdmin -> 
             createPurchaseOrderApprovalNotification(superAdmin.getUsername(), poNumber, requesterUsername));
     }
-}
\ No newline at end of file
+    
+    /**
+     * Tells every user in {@code erp.budget.alert-roles} that a project's approved purchase orders
+     * reached {@code thresholdPercent} of its budget.
+     */
+    public void notifyBudgetThresholdReached(Long projectId, int thresholdPercent, BigDecimal budget) {
+        Map<Long, User> recipients = new LinkedHashMap<>();
+        for (String role : budgetAlertRoles) {
+            userRepository.findByRolesName(role.trim()).forEach(user -> recipients.putIfAbsent(user.getId(), user));
+        }
+        
+        String message = "Approved purchase orders for project " + projectId + " have reached " + thresholdPercent +
+                "% of its budget of " + budget + ".";
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>(recipients.size());
+        for (User recipient : recipients.values()) {
+            Notification notification = new Notification();
+            notification.setRecipient(recipient);
+            notification.setTitle("Budget alert: project " + projectId + " at " + thresholdPercent + "%");
+            notification.setMessage(message);
+            notification.setType(Notification.NotificationType.EMPLOYEE_REQUEST_APPROVAL);
+            notification.setRead(false);
+            notification.setCreatedAt(now);
+            notifications.add(notification);
+        }
+        notificationRepository.saveAll(notifications);
+    }
+}
@@ -0,0 +1,248 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.ProjectCostCounter;
+import org.erp.entity.ProjectEmployeeCostCounter;
+import org.erp.repository.ProjectCostCounterRepository;
+import org.erp.repository.ProjectEmployeeCostCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Maintains per-project and per-project-employee labor and inventory cost counters, and each project's
+ * approved purchase order spend. Deltas are applied in the transaction that changes the timesheet,
+ * inventory item or purchase order; a background job recomputes the totals from the raw tables and
+ * repairs any drift.
+ */
+@Service
+@Transactional
+public class ProjectCostCounterService {
+
+    private static final Logger logger = LogManager.getLogger(ProjectCostCounterService.class);
+
+    @Autowired
+    private ProjectCostCounterRepository projectCostCounterRepository;
+
+    @Autowired
+    private ProjectEmployeeCostCounterRepository projectEmployeeCostCounterRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${erp.budget.alert-thresholds:50,80,100}")
+    private int[] budgetAlertThresholds;
+
+    /**
+     * Adds a timesheet change; {@code timesheetCountDelta} is 1 for a new row, -1 for a deleted one.
+     */
+    public void recordLabor(Long projectId, Long employeeId, BigDecimal hoursDelta, BigDecimal costDelta,
+                            int timesheetCountDelta) {
+        BigDecimal hours = money(hoursDelta);
+        BigDecimal cost = money(costDelta);
+        if (hours.signum() == 0 && cost.signum() == 0 && timesheetCountDelta == 0) {
+            return;
+        }
+        // Project row first: repairs lock it too, so it serializes them with these deltas
+        projectCostCounterRepository.applyDelta(projectId, cost, hours, timesheetCountDelta, BigDecimal.ZERO);
+        projectEmployeeCostCounterRepository.applyDelta(projectId, employeeId, cost, hours, timesheetCountDelta);
+    }
+
+    public void recordInventoryCost(Long projectId, BigDecimal costDelta) {
+        BigDecimal cost = money(costDelta);
+        if (cost.signum() != 0) {
+            projectCostCounterRepository.applyDelta(projectId, BigDecimal.ZERO, BigDecimal.ZERO, 0, cost);
+        }
+    }
+
+    /**
+     * Adds to the project's approved purchase order spend and returns the budget alert threshold (percent)
+     * that this change crossed upwards, if any. Each threshold is returned once per crossing: falling back
+     * below it re-arms it. The counter row stays locked until commit, so concurrent approvals take turns.
+     */
+    public Optional<Integer> recordApprovedPurchaseOrderAmount(Long projectId, BigDecimal budget, BigDecimal amountDelta) {
+        BigDecimal amount = money(amountDelta);
+        projectCostCounterRepository.applyApprovedPurchaseOrderDelta(projectId, amount);
+        if (budget == null || budget.signum() <= 0) {
+            return Optional.empty();
+        }
+
+        Object[] state = projectCostCounterRepository.findBudgetState(projectId).get(0);
+        BigDecimal spent = (BigDecimal) state[0];
+        int alertedPercent = ((Number) state[1]).intValue();
+        BigDecimal spentPercent = spent.multiply(BigDecimal.valueOf(100)).divide(budget, 2, RoundingMode.HALF_UP);
+
+        int reachedPercent = 0;
+        for (int threshold : budgetAlertThresholds) {
+            if (threshold > reachedPercent && spentPercent.compareTo(BigDecimal.valueOf(threshold)) >= 0) {
+                reachedPercent = threshold;
+            }
+        }
+        if (reachedPercent != alertedPercent) {
+            projectCostCounterRepository.updateBudgetAlertPercent(projectId, reachedPercent);
+        }
+        return reachedPercent > alertedPercent ? Optional.of(reachedPercent) : Optional.empty();
+    }
+
+    public void deleteProjectCounters(Long projectId) {
+        projectEmployeeCostCounterRepository.deleteByProjectId(projectId);
+        projectCostCounterRepository.deleteByProjectId(projectId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProjectCostCounter> getProjectCounter(Long projectId) {
+        return projectCostCounterRepository.findByProjectId(projectId);
+    }
+
+    /**
+     * employeeId, name, empId, laborCost, laborHours, timesheetCount per employee with entries on the project.
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> getEmployeeBreakdown(Long projectId) {
+        return projectEmployeeCostCounterRepository.findBreakdownByProjectId(projectId);
+    }
+
+    /**
+     * Recomputes one project's counters from the raw tables.
+     */
+    public void repairProject(Long projectId) {
+        // A zero delta creates the row if needed and takes its lock until commit
+        projectCostCounterRepository.applyDelta(projectId, BigDecimal.ZERO, BigDecimal.ZERO, 0, BigDecimal.ZERO);
+        projectCostCounterRepository.recomputeFromSourceTables(projectId);
+        projectEmployeeCostCounterRepository.deleteByProjectId(projectId);
+        projectEmployeeCostCounterRepository.insertFromTimesheets(projectId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapIfEmpty() {
+        if (projectCostCounterRepository.count() == 0) {
+            int projects = projectCostCounterRepository.insertMissingFromSourceTables();
+            int employees = projectEmployeeCostCounterRepository.insertMissingFromTimesheets();
+            logger.info("Initialized cost counters for {} projects and {} project employees", projects, employees);
+        }
+    }
+
+    /**
+     * Compares every counter with totals recomputed from timesheets and project inventory items,
+     * logs the drift and repairs the affected projects, each in its own transaction.
+     */
+    @Scheduled(fixedDelayString = "${erp.counters.reconcile-interval-ms:3600000}",
+               initialDelayString = "${erp.counters.reconcile-initial-delay-ms:600000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> reconcile() {
+        Set<Long> driftedProjects = new HashSet<>();
+        List<String> drift = new ArrayList<>();
+
+        Map<Long, ProjectCostCounter> counters = new HashMap<>();
+        for (ProjectCostCounter counter : projectCostCounterRepository.findAll()) {
+            counters.put(counter.getProjectId(), counter);
+        }
+        for (Object[] row : projectCostCounterRepository.getSourceTotals()) {
+            Long projectId = ((Number) row[0]).longValue();
+            ProjectCostCounter counter = counters.remove(projectId);
+            BigDecimal laborCost = (BigDecimal) row[1];
+            BigDecimal laborHours = (BigDecimal) row[2];
+            long timesheetCount = ((Number) row[3]).longValue();
+            BigDecimal inventoryCost = (BigDecimal) row[4];
+            BigDecimal approvedPurchaseOrderAmount = (BigDecimal) row[5];
+
+            boolean empty = laborCost.signum() == 0 && laborHours.signum() == 0 && timesheetCount == 0
+                    && inventoryCost.signum() == 0 && approvedPurchaseOrderAmount.signum() == 0;
+            if (counter == null) {
+                if (!empty) {
+                    driftedProjects.add(projectId);
+                    drift.add("project " + projectId + ": counter missing");
+                }
+            } else if (counter.getLaborCost().compareTo(laborCost) != 0
+                    || counter.getLaborHours().compareTo(laborHours) != 0
+                    || counter.getTimesheetCount() != timesheetCount
+                    || counter.getInventoryCost().compareTo(inventoryCost) != 0
+                    || counter.getApprovedPurchaseOrderAmount().compareTo(approvedPurchaseOrderAmount) != 0) {
+                driftedProjects.add(projectId);
+                drift.add("project " + projectId + ": laborCost " + counter.getLaborCost() + " vs " + laborCost
+                        + ", laborHours " + counter.getLaborHours() + " vs " + laborHours
+                        + ", timesheets " + counter.getTimesheetCount() + " vs " + timesheetCount
+                        + ", inventoryCost " + counter.getInventoryCost() + " vs " + inventoryCost
+                        + ", approvedPurchaseOrders " + counter.getApprovedPurchaseOrderAmount()
+                        + " vs " + approvedPurchaseOrderAmount);
+            }
+        }
+        // Counters left over belong to projects that no longer exist
+        Set<Long> orphanProjects = new HashSet<>(counters.keySet());
+        for (Long orphanProjectId : orphanProjects) {
+            drift.add("project " + orphanProjectId + ": counter without project");
+        }
+
+        Map<String, BigDecimal[]> employeeCounters = new HashMap<>();
+        for (ProjectEmployeeCostCounter counter : projectEmployeeCostCounterRepository.findAll()) {
+            employeeCounters.put(counter.getProjectId() + ":" + counter.getEmployeeId(), new BigDecimal[] {
+                    counter.getLaborCost(), counter.getLaborHours(), BigDecimal.valueOf(counter.getTimesheetCount())});
+        }
+        for (Object[] row : projectEmployeeCostCounterRepository.getSourceTotals()) {
+            Long projectId = ((Number) row[0]).longValue();
+            BigDecimal[] counter = employeeCounters.remove(projectId + ":" + ((Number) row[1]).longValue());
+            if (counter == null
+                    || counter[0].compareTo((BigDecimal) row[2]) != 0
+                    || counter[1].compareTo((BigDecimal) row[3]) != 0
+                    || counter[2].longValue() != ((Number) row[4]).longValue()) {
+                if (driftedProjects.add(projectId)) {
+                    drift.add("project " + projectId + ": employee " + row[1] + " counters differ");
+                }
+            }
+        }
+        for (Map.Entry<String, BigDecimal[]> leftover : employeeCounters.entrySet()) {
+            BigDecimal[] counter = leftover.getValue();
+            if (counter[0].signum() != 0 || counter[1].signum() != 0 || counter[2].signum() != 0) {
+                Long projectId = Long.valueOf(leftover.getKey().substring(0, leftover.getKey().indexOf(':')));
+                if (!orphanProjects.contains(projectId) && driftedProjects.add(projectId)) {
+                    drift.add("project " + projectId + ": employee counters without timesheets");
+                }
+            }
+        }
+
+        // Changes that committed between the two reads also show up here; repairing them is harmless
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Long projectId : driftedProjects) {
+            transactionTemplate.executeWithoutResult(status -> repairProject(projectId));
+        }
+        for (Long projectId : orphanProjects) {
+            transactionTemplate.executeWithoutResult(status -> deleteProjectCounters(projectId));
+        }
+
+        if (drift.isEmpty()) {
+            logger.info("Cost counters reconciled, no drift");
+        } else {
+            logger.warn("Cost counters drifted for {} projects and were repaired: {}",
+                    driftedProjects.size() + orphanProjects.size(), drift);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("repairedProjects", driftedProjects.size());
+        result.put("removedProjects", orphanProjects.size());
+        result.put("drift", drift);
+        return result;
+    }
+
+    // Counter columns are numeric(.., 2); round the same way the source columns were stored
+    private BigDecimal money(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+}
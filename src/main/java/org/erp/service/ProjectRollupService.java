@@ -0,0 +1,90 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.PurchaseOrder;
+import org.erp.repository.ProjectDailyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Maintains the per-project daily rollups read by the reports.
+ * Every method is called inside the transaction that changes the source row,
+ * so the rollups commit or roll back together with it.
+ */
+@Service
+@Transactional
+public class ProjectRollupService {
+
+    private static final Logger logger = LogManager.getLogger(ProjectRollupService.class);
+
+    @Autowired
+    private ProjectDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    public void recordLabor(Long projectId, LocalDate workDate, BigDecimal hoursDelta, BigDecimal costDelta) {
+        BigDecimal hours = money(hoursDelta);
+        BigDecimal cost = money(costDelta);
+        if (hours.signum() == 0 && cost.signum() == 0) {
+            return;
+        }
+        rollupRepository.applyDelta(projectId, workDate, hours, cost, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+        reportCacheService.invalidateDate(workDate);
+    }
+
+    /**
+     * Adds (sign = 1) or removes (sign = -1) a purchase order on its creation day,
+     * including its approved amount when the order is already approved.
+     */
+    public void recordPurchaseOrder(PurchaseOrder purchaseOrder, int sign) {
+        BigDecimal amount = money(purchaseOrder.getTotalAmount()).multiply(BigDecimal.valueOf(sign));
+        BigDecimal approvedAmount = Boolean.TRUE.equals(purchaseOrder.getIsApproved()) ? amount : BigDecimal.ZERO;
+        rollupRepository.applyDelta(purchaseOrder.getProject().getId(), purchaseOrder.getCreatedDate().toLocalDate(),
+                BigDecimal.ZERO, BigDecimal.ZERO, sign, amount, approvedAmount);
+        reportCacheService.invalidateDate(purchaseOrder.getCreatedDate().toLocalDate());
+    }
+
+    public void recordPurchaseOrderApproval(PurchaseOrder purchaseOrder) {
+        rollupRepository.applyDelta(purchaseOrder.getProject().getId(), purchaseOrder.getCreatedDate().toLocalDate(),
+                BigDecimal.ZERO, BigDecimal.ZERO, 0, BigDecimal.ZERO, money(purchaseOrder.getTotalAmount()));
+        reportCacheService.invalidateDate(purchaseOrder.getCreatedDate().toLocalDate());
+    }
+
+    public void deleteProjectRollups(Long projectId) {
+        rollupRepository.deleteByProjectId(projectId);
+        reportCacheService.invalidateAll();
+    }
+
+    /**
+     * Recomputes every rollup row from the timesheets and purchase_orders tables.
+     */
+    public int rebuild() {
+        rollupRepository.deleteAllRollups();
+        int rows = rollupRepository.rebuildFromSourceTables();
+        reportCacheService.invalidateAll();
+        logger.info("Rebuilt project daily rollups: {} rows", rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (rollupRepository.count() == 0) {
+            logger.info("Project daily rollups are empty, rebuilding from source tables");
+            rebuild();
+        }
+    }
+
+    // Columns are numeric(.., 2); round the same way PostgreSQL does when it stores the source value
+    private BigDecimal money(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+}
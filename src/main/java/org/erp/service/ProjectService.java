@@ -8,8 +8,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.Map;
 import java.util.HashMap;
@@ -19,6 +24,10 @@ import org.erp.controller.ProjectController;
 @Transactional
 public class ProjectService {
     
+    static final BigDecimal MAX_HOURS_PER_DAY = BigDecimal.valueOf(24);
+    
+    private static final int MAX_STATS_RANGE_DAYS = 366;
+    
     @Autowired
     private ProjectRepository projectRepository;
     
@@ -32,18 +41,35 @@ public class ProjectService {
     private EmployeeRepository employeeRepository;
     
     @Autowired
-    private ProjectInventoryItemRepository projectInventoryItemRepository;
+    private ProjectRollupService projectRollupService;
+    
+    @Autowired
+    private ReportCacheService reportCacheService;
+    
+    @Autowired
+    private TimesheetSnapshotService timesheetSnapshotService;
+    
+    @Autowired
+    private TimesheetBatchWriter timesheetBatchWriter;
+    
+    @Autowired
+    private ProjectCostCounterService projectCostCounterService;
     
     public Project createProject(Project project) {
+        reportCacheService.invalidateAll();
         return projectRepository.save(project);
     }
     
     public Project updateProject(Project project) {
+        reportCacheService.invalidateAll();
         return projectRepository.save(project);
     }
     
     public void deleteProject(Long projectId) {
         projectRepository.deleteById(projectId);
+        projectRollupService.deleteProjectRollups(projectId);
+        projectCostCounterService.deleteProjectCounters(projectId);
+        timesheetSnapshotService.removeProject(projectId);
     }
     
     public List<Project> getAllProjects() {
@@ -96,20 +122,89 @@ public class ProjectService {
         Timesheet existingTimesheet = timesheetRepository.findByProjectEmployeeAndDate(projectId, employeeId, workDate);
         
         if (existingTimesheet != null) {
+            BigDecimal previousHours = existingTimesheet.getHoursWorked();
+            BigDecimal previousAmount = existingTimesheet.getTotalAmount();
             existingTimesheet.setHoursWorked(hoursWorked);
             existingTimesheet.setHourlyRate(project.getPerHourRate());
             existingTimesheet.setDailyRate(project.getPerDayRate());
             existingTimesheet.setTotalAmount(calculateTotalAmount(hoursWorked, project.getPerHourRate(), project.getPerDayRate()));
-            return timesheetRepository.save(existingTimesheet);
+            Timesheet savedTimesheet = timesheetRepository.save(existingTimesheet);
+            recordLaborChange(projectId, employeeId, workDate, previousHours, previousAmount, hoursWorked,
+                    savedTimesheet.getTotalAmount(), false);
+            timesheetSnapshotService.recordTimesheet(savedTimesheet.getId(), employeeId, projectId, workDate,
+                    hoursWorked, savedTimesheet.getTotalAmount());
+            return savedTimesheet;
         } else {
             Timesheet timesheet = new Timesheet(project, employee, workDate, hoursWorked);
             timesheet.setHourlyRate(project.getPerHourRate());
             timesheet.setDailyRate(project.getPerDayRate());
             timesheet.setTotalAmount(calculateTotalAmount(hoursWorked, project.getPerHourRate(), project.getPerDayRate()));
-            return timesheetRepository.save(timesheet);
+            Timesheet savedTimesheet = timesheetRepository.save(timesheet);
+            recordLaborChange(projectId, employeeId, workDate, null, null, hoursWorked, savedTimesheet.getTotalAmount(), true);
+            timesheetSnapshotService.recordTimesheet(savedTimesheet.getId(), employeeId, projectId, workDate,
+                    hoursWorked, savedTimesheet.getTotalAmount());
+            return savedTimesheet;
         }
     }
     
+    /**
+     * Saves a whole timesheet grid for one project in a single batched upsert.
+     * Invalid cells are returned in "rejected" and the rest are still saved.
+     */
+    public Map<String, Object> saveTimesheetGrid(Long projectId, List<TimesheetBatchWriter.TimesheetEntry> entries) {
+        Project project = projectRepository.findById(projectId)
+                .orElseThrow(() -> new RuntimeException("Project not found"));
+        
+        Set<Long> unknownEmployees = timesheetBatchWriter.findUnknownEmployees(entries.stream()
+                .map(TimesheetBatchWriter.TimesheetEntry::getEmployeeId)
+                .filter(id -> id != null)
+                .collect(Collectors.toSet()));
+        
+        List<TimesheetBatchWriter.TimesheetEntry> accepted = new ArrayList<>();
+        List<Map<String, Object>> rejected = new ArrayList<>();
+        for (TimesheetBatchWriter.TimesheetEntry entry : entries) {
+            String error = null;
+            if (entry.getEmployeeId() == null || entry.getWorkDate() == null) {
+                error = "Employee and work date are required";
+            } else if (unknownEmployees.contains(entry.getEmployeeId())) {
+                error = "Employee not found";
+            } else if (entry.getHoursWorked() == null || entry.getHoursWorked().signum() < 0
+                    || entry.getHoursWorked().compareTo(MAX_HOURS_PER_DAY) > 0) {
+                error = "Hours worked must be between 0 and " + MAX_HOURS_PER_DAY;
+            }
+            
+            if (error == null) {
+                accepted.add(entry);
+            } else {
+                Map<String, Object> rejection = new HashMap<>();
+                rejection.put("employeeId", entry.getEmployeeId());
+                rejection.put("workDate", entry.getWorkDate());
+                rejection.put("error", error);
+                rejected.add(rejection);
+            }
+        }
+        
+        int saved = timesheetBatchWriter.write(project, accepted);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("projectId", projectId);
+        result.put("saved", saved);
+        result.put("rejected", rejected);
+        return result;
+    }
+    
+    private void recordLaborChange(Long projectId, Long employeeId, LocalDate workDate, BigDecimal previousHours,
+                                   BigDecimal previousAmount, BigDecimal hours, BigDecimal amount, boolean newTimesheet) {
+        BigDecimal hoursDelta = nullToZero(hours).subtract(nullToZero(previousHours));
+        BigDecimal amountDelta = nullToZero(amount).subtract(nullToZero(previousAmount));
+        projectRollupService.recordLabor(projectId, workDate, hoursDelta, amountDelta);
+        projectCostCounterService.recordLabor(projectId, employeeId, hoursDelta, amountDelta, newTimesheet ? 1 : 0);
+    }
+    
+    private BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+    
     public List<Timesheet> getTimesheetsByProject(Long projectId) {
         return timesheetRepository.findByProjectId(projectId);
     }
@@ -118,12 +213,67 @@ public class ProjectService {
         return timesheetRepository.findByProjectIdAndDateRange(projectId, startDate, endDate);
     }
     
+    /**
+     * Hours for one month as an employees x days matrix with row and column totals.
+     * {@code hours[d]} is day d + 1 of the month, null where nothing was entered.
+     */
+    public Map<String, Object> getTimesheetMatrix(Long projectId, YearMonth month) {
+        LocalDate startDate = month.atDay(1);
+        LocalDate endDate = month.atEndOfMonth();
+        int days = month.lengthOfMonth();
+        
+        List<Map<String, Object>> employees = new ArrayList<>();
+        BigDecimal[] dayTotals = new BigDecimal[days];
+        Arrays.fill(dayTotals, BigDecimal.ZERO);
+        BigDecimal grandTotal = BigDecimal.ZERO;
+        
+        Long currentEmployeeId = null;
+        BigDecimal[] hours = null;
+        BigDecimal rowTotal = null;
+        for (Object[] row : timesheetRepository.getEmployeeDailyHours(projectId, startDate, endDate)) {
+            Long employeeId = (Long) row[0];
+            if (!employeeId.equals(currentEmployeeId)) {
+                if (currentEmployeeId != null) {
+                    employees.get(employees.size() - 1).put("total", rowTotal);
+                }
+                currentEmployeeId = employeeId;
+                hours = new BigDecimal[days];
+                rowTotal = BigDecimal.ZERO;
+                
+                Map<String, Object> employeeRow = new HashMap<>();
+                employeeRow.put("employeeId", employeeId);
+                employeeRow.put("employeeName", row[1]);
+                employeeRow.put("empId", row[2]);
+                employeeRow.put("hours", hours);
+                employees.add(employeeRow);
+            }
+            
+            int day = ((LocalDate) row[3]).getDayOfMonth() - 1;
+            BigDecimal dayHours = (BigDecimal) row[4];
+            hours[day] = dayHours;
+            rowTotal = rowTotal.add(dayHours);
+            dayTotals[day] = dayTotals[day].add(dayHours);
+            grandTotal = grandTotal.add(dayHours);
+        }
+        if (currentEmployeeId != null) {
+            employees.get(employees.size() - 1).put("total", rowTotal);
+        }
+        
+        Map<String, Object> matrix = new HashMap<>();
+        matrix.put("projectId", projectId);
+        matrix.put("month", month.toString());
+        matrix.put("startDate", startDate);
+        matrix.put("days", days);
+        matrix.put("employees", employees);
+        matrix.put("dayTotals", dayTotals);
+        matrix.put("total", grandTotal);
+        return matrix;
+    }
+    
     public BigDecimal calculateProjectTotalExpense(Long projectId) {
-        List<Timesheet> timesheets = timesheetRepository.findByProjectId(projectId);
-        return timesheets.stream()
-                .map(Timesheet::getTotalAmount)
-                .filter(amount -> amount != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return projectCostCounterService.getProjectCounter(projectId)
+                .map(ProjectCostCounter::getLaborCost)
+                .orElse(BigDecimal.ZERO);
     }
     
     public Long getEmployeeCountForDate(Long projectId, LocalDate date) {
@@ -134,7 +284,35 @@ public class ProjectService {
         return timesheetRepository.getTotalHoursByProjectAndDate(projectId, date);
     }
     
-    private BigDecimal calculateTotalAmount(BigDecimal hoursWorked, BigDecimal perHourRate, BigDecimal perDayRate) {
+    /**
+     * Employee count and hours for every day from startDate to endDate, including days with no entries.
+     */
+    public List<ProjectController.DailyProjectStats> getDailyStatsForRange(Long projectId, LocalDate startDate,
+                                                                           LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must be on or before end date");
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (days > MAX_STATS_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_STATS_RANGE_DAYS + " days");
+        }
+        
+        Map<LocalDate, Object[]> statsByDate = new HashMap<>();
+        for (Object[] row : timesheetRepository.getDailyStatsByProjectAndDateRange(projectId, startDate, endDate)) {
+            statsByDate.put((LocalDate) row[0], row);
+        }
+        
+        List<ProjectController.DailyProjectStats> stats = new ArrayList<>((int) days);
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            Object[] row = statsByDate.get(date);
+            Long employeeCount = row != null ? (Long) row[1] : 0L;
+            Double totalHours = row != null && row[2] != null ? ((BigDecimal) row[2]).doubleValue() : 0.0;
+            stats.add(new ProjectController.DailyProjectStats(date, employeeCount, totalHours));
+        }
+        return stats;
+    }
+    
+    static BigDecimal calculateTotalAmount(BigDecimal hoursWorked, BigDecimal perHourRate, BigDecimal perDayRate) {
         if (hoursWorked == null || hoursWorked.compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.ZERO;
         }
@@ -156,26 +334,20 @@ public class ProjectService {
             return false;
         }
         
-        Project project = projectOpt.get();
-        LocalDate now = LocalDate.now();
-        
+        return isTimesheetEditable(projectOpt.get(), date, LocalDate.now());
+    }
+    
+    static boolean isTimesheetEditable(Project project, LocalDate date, LocalDate today) {
         return !date.isBefore(project.getStartDate()) && 
                !date.isAfter(project.getEndDate()) && 
-               !date.isAfter(now);
+               !date.isAfter(today);
     }
     
     public ProjectController.ProjectExpenseBreakdown calculateProjectExpenseBreakdown(Long projectId) {
-        // Calculate employee expenses
-        List<Timesheet> timesheets = timesheetRepository.findByProjectId(projectId);
-        BigDecimal employeeExpenses = timesheets.stream()
-                .map(Timesheet::getTotalAmount)
-                .filter(amount -> amount != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Calculate inventory expenses
-        Double inventoryExpensesDouble = projectInventoryItemRepository.getTotalInventoryExpenseByProjectId(projectId);
-        BigDecimal inventoryExpenses = inventoryExpensesDouble != null ? 
-                BigDecimal.valueOf(inventoryExpensesDouble) : BigDecimal.ZERO;
+        // Employee and inventory expenses come from the running cost counters
+        Optional<ProjectCostCounter> counter = projectCostCounterService.getProjectCounter(projectId);
+        BigDecimal employeeExpenses = counter.map(ProjectCostCounter::getLaborCost).orElse(BigDecimal.ZERO);
+        BigDecimal inventoryExpenses = counter.map(ProjectCostCounter::getInventoryCost).orElse(BigDecimal.ZERO);
         
         // For now, other expenses is zero (can be extended to include other expense types)
         BigDecimal otherExpenses = BigDecimal.ZERO;
@@ -183,38 +355,17 @@ public class ProjectService {
         // Calculate total expense
         BigDecimal totalExpense = employeeExpenses.add(inventoryExpenses).add(otherExpenses);
         
-        // Calculate employee expense details
-        Map<Employee, List<Timesheet>> employeeTimesheets = timesheets.stream()
-                .collect(Collectors.groupingBy(Timesheet::getEmployee));
-        
-        List<ProjectController.EmployeeExpenseDetail> employeeExpenseDetails = employeeTimesheets.entrySet()
-                .stream()
-                .map(entry -> {
-                    Employee employee = entry.getKey();
-                    List<Timesheet> empTimesheets = entry.getValue();
-                    
-                    BigDecimal empTotalExpense = empTimesheets.stream()
-                            .map(Timesheet::getTotalAmount)
-                            .filter(amount -> amount != null)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    
-                    Double totalHours = empTimesheets.stream()
-                            .map(Timesheet::getHoursWorked)
-                            .filter(hours -> hours != null)
-                            .map(BigDecimal::doubleValue)
-                            .reduce(0.0, Double::sum);
-                    
-                    Integer totalDaysWorked = empTimesheets.size();
-                    
-                    return new ProjectController.EmployeeExpenseDetail(
-                            employee.getName(),
-                            employee.getEmpId(),
-                            empTotalExpense,
-                            totalHours,
-                            totalDaysWorked
-                    );
-                })
-                .collect(Collectors.toList());
+        // Employee expense details, one counter row per employee with entries on the project
+        List<ProjectController.EmployeeExpenseDetail> employeeExpenseDetails = new ArrayList<>();
+        for (Object[] row : projectCostCounterService.getEmployeeBreakdown(projectId)) {
+            employeeExpenseDetails.add(new ProjectController.EmployeeExpenseDetail(
+                    (String) row[1],
+                    (String) row[2],
+                    (BigDecimal) row[3],
+                    ((BigDecimal) row[4]).doubleValue(),
+                    ((Number) row[5]).intValue()
+            ));
+        }
         
         return new ProjectController.ProjectExpenseBreakdown(
                 totalExpense,
@@ -3,14 +3,21 @@ package org.erp.service;
 import org.erp.entity.*;
 import org.erp.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -41,6 +48,28 @@ public class PurchaseOrderService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private ProjectRollupService projectRollupService;
+    
+    @Autowired
+    private BusinessKeyAllocator businessKeyAllocator;
+    
+    @Autowired
+    private InventoryCatalogCache inventoryCatalogCache;
+    
+    @Autowired
+    private ProjectCostCounterService projectCostCounterService;
+    
+    @Autowired
+    private ReportCacheService reportCacheService;
+    
+    @Value("${erp.purchasing.shortage-sweep.max-items:5000}")
+    private int shortageSweepMaxItems;
+    
+    /**
+     * Creates a PO with one line per inventory id. The PO is inserted once with its final total and
+     * approval flag, and the lines are inserted as JDBC batches; unknown inventory ids are skipped.
+     */
     public PurchaseOrder createPurchaseOrder(PurchaseOrder purchaseOrder, List<Long> inventoryIds, 
                                            List<Integer> quantities, Long projectId, String currentUser) {
         try {
@@ -51,70 +80,35 @@ public class PurchaseOrderService {
             if (projectId == null) {
                 throw new IllegalArgumentException("Project ID cannot be null");
             }
+            if (inventoryIds == null || quantities == null || inventoryIds.size() != quantities.size()) {
+                throw new IllegalArgumentException("Inventory ids and quantities must be given pairwise");
+            }
             
             // Load the full project entity
             Project fullProject = projectRepository.findById(projectId)
                     .orElseThrow(() -> new IllegalArgumentException("Project not found with ID: " + projectId));
             purchaseOrder.setProject(fullProject);
             
-            // Generate PO number: PROJECT_ID-PO-TIMESTAMP
+            // Generate PO number: PROJECT_ID-PO-SEQUENCE
             String poNumber = generatePONumber(fullProject.getId());
             purchaseOrder.setPoNumber(poNumber);
             purchaseOrder.setCreatedBy(currentUser);
             purchaseOrder.setCreatedDate(LocalDateTime.now());
             purchaseOrder.setPoStatus(PurchaseOrder.POStatus.CREATED);
             
-            // Save PO first
-            PurchaseOrder savedPO = purchaseOrderRepository.save(purchaseOrder);
-            
-            // Create PO items
-            BigDecimal totalAmount = BigDecimal.ZERO;
+            // Build PO items; unit prices come from the catalog cache, loaded in one query on a miss
+            Map<Long, InventoryCatalogCache.CatalogEntry> catalog = inventoryCatalogCache.getAll(inventoryIds);
+            List<PurchaseOrderItem> poItems = new ArrayList<>(inventoryIds.size());
             for (int i = 0; i < inventoryIds.size(); i++) {
-                Optional<Inventory> inventoryOpt = inventoryRepository.findById(inventoryIds.get(i));
-                if (inventoryOpt.isPresent()) {
-                    Inventory inventory = inventoryOpt.get();
-                    Integer quantity = quantities.get(i);
-                    BigDecimal unitPrice = inventory.getPerQuantityPrice();
-                    
-                    PurchaseOrderItem poItem = new PurchaseOrderItem(savedPO, inventory, quantity, unitPrice);
-                    purchaseOrderItemRepository.save(poItem);
-                    
-                    totalAmount = totalAmount.add(poItem.getTotalPrice());
-                }
-            }
-            
-            // Update PO total amount
-            savedPO.setTotalAmount(totalAmount);
-            purchaseOrderRepository.save(savedPO);
-            
-            // Create approval request for the PO - auto-approve for superadmin
-            PurchaseOrderRequest poRequest = new PurchaseOrderRequest(savedPO, currentUser);
-            
-            // Check if current user is superadmin - if so, auto-approve
-            if (isUserSuperAdmin(currentUser)) {
-                poRequest.setRequestStatus(PurchaseOrderRequest.RequestStatus.APPROVED);
-                poRequest.setApprovedBy(currentUser);
-                poRequest.setApprovalDate(LocalDateTime.now());
-                savedPO.setIsApproved(true);
-                purchaseOrderRepository.save(savedPO);
-                
-                // Update project stage to ORDER_STAGE for auto-approved PO
-                Project project = savedPO.getProject();
-                if (!"ORDER_STAGE".equals(project.getProjectStage())) {
-                    project.setProjectStage("ORDER_STAGE");
-                    projectRepository.save(project);
+                InventoryCatalogCache.CatalogEntry catalogEntry = catalog.get(inventoryIds.get(i));
+                if (catalogEntry != null) {
+                    Inventory inventory = inventoryRepository.getReferenceById(catalogEntry.getId());
+                    poItems.add(new PurchaseOrderItem(purchaseOrder, inventory, quantities.get(i),
+                            catalogEntry.getPerQuantityPrice()));
                 }
-                
-                // Check budget and send notification if below 50%
-                checkBudgetAndNotify(project);
-            } else {
-                // For non-superadmin users, notify all superadmins for approval
-                notificationService.notifyAllSuperAdminsForPOApproval(poNumber, currentUser);
             }
             
-            purchaseOrderRequestRepository.save(poRequest);
-            
-            return savedPO;
+            return submitPurchaseOrder(purchaseOrder, poItems, currentUser);
         } catch (Exception e) {
             throw new RuntimeException("Failed to create purchase order: " + e.getMessage());
         }
@@ -140,7 +134,13 @@ public class PurchaseOrderService {
         Optional<PurchaseOrder> poOpt = purchaseOrderRepository.findById(purchaseOrderId);
         if (poOpt.isPresent()) {
             PurchaseOrder po = poOpt.get();
+            boolean wasCancelled = po.getPoStatus() == PurchaseOrder.POStatus.CANCELLED;
+            boolean cancelled = newStatus == PurchaseOrder.POStatus.CANCELLED;
             po.setPoStatus(newStatus);
+            // A cancelled PO no longer counts against the budget
+            if (Boolean.TRUE.equals(po.getIsApproved()) && wasCancelled != cancelled) {
+                recordApprovedSpend(po, cancelled ? -1 : 1);
+            }
             return purchaseOrderRepository.save(po);
         }
         throw new RuntimeException("Purchase Order not found");
@@ -153,6 +153,10 @@ public class PurchaseOrderService {
             
             // Only allow deletion if PO is in CREATED status
             if (po.getPoStatus() == PurchaseOrder.POStatus.CREATED) {
+                projectRollupService.recordPurchaseOrder(po, -1);
+                if (Boolean.TRUE.equals(po.getIsApproved())) {
+                    recordApprovedSpend(po, -1);
+                }
                 purchaseOrderRepository.deleteById(purchaseOrderId);
             } else {
                 throw new RuntimeException("Cannot delete PO that has been sent to supplier");
@@ -171,8 +175,7 @@ public class PurchaseOrderService {
     }
     
     private String generatePONumber(Long projectId) {
-        long timestamp = System.currentTimeMillis();
-        return projectId + "-PO-" + timestamp;
+        return businessKeyAllocator.nextPurchaseOrderNumber(projectId);
     }
     
     public PurchaseOrder createPurchaseOrderFromShortage(Long projectId, Long projectInventoryItemId, 
@@ -199,53 +202,133 @@ public class PurchaseOrderService {
             po.setCreatedBy(createdBy);
             po.setCreatedDate(LocalDateTime.now());
             
-            PurchaseOrder savedPO = purchaseOrderRepository.save(po);
-            
             // Create PO item for shortage quantity
-            Inventory inventory = shortageItem.getInventory();
-            Integer shortageQuantity = shortageItem.getShortageQuantity();
-            BigDecimal unitPrice = shortageItem.getUnitPrice();
-            
-            PurchaseOrderItem poItem = new PurchaseOrderItem(savedPO, inventory, shortageQuantity, unitPrice);
-            purchaseOrderItemRepository.save(poItem);
-            
-            // Update PO total
-            savedPO.setTotalAmount(poItem.getTotalPrice());
-            purchaseOrderRepository.save(savedPO);
+            PurchaseOrderItem poItem = new PurchaseOrderItem(po, shortageItem.getInventory(),
+                    shortageItem.getShortageQuantity(), shortageItem.getUnitPrice());
             
             // Mark PO as created in ProjectInventoryItem
             shortageItem.setPoCreated(true);
             projectInventoryItemRepository.save(shortageItem);
             
-            // Create approval request for the PO - auto-approve for superadmin
-            PurchaseOrderRequest poRequest = new PurchaseOrderRequest(savedPO, createdBy);
+            return submitPurchaseOrder(po, List.of(poItem), createdBy);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create PO from shortage: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Turns every open shortage (no PO yet) across projects into purchase orders: one PO per project and
+     * supplier, with one line per inventory item carrying the summed shortage at the current unit price.
+     * The shortages are read with one locked query and marked with one bulk update; PO lines go out as
+     * batched inserts. Shortages beyond {@code erp.purchasing.shortage-sweep.max-items} wait for the next sweep.
+     */
+    public Map<String, Object> createPurchaseOrdersFromShortages(String createdBy) {
+        List<Object[]> shortages = projectInventoryItemRepository.findOpenShortagesForUpdate(shortageSweepMaxItems);
+        
+        // project id -> supplier -> inventory id -> {quantity}, in the order the shortages were raised
+        Map<Long, Map<String, Map<Long, int[]>>> orders = new LinkedHashMap<>();
+        Map<Long, BigDecimal> unitPrices = new HashMap<>();
+        List<Long> itemIds = new ArrayList<>(shortages.size());
+        for (Object[] row : shortages) {
+            Long projectId = ((Number) row[1]).longValue();
+            Long inventoryId = ((Number) row[2]).longValue();
+            itemIds.add(((Number) row[0]).longValue());
+            unitPrices.put(inventoryId, (BigDecimal) row[5]);
+            orders.computeIfAbsent(projectId, id -> new LinkedHashMap<>())
+                  .computeIfAbsent((String) row[4], supplier -> new LinkedHashMap<>())
+                  .computeIfAbsent(inventoryId, id -> new int[1])[0] += ((Number) row[3]).intValue();
+        }
+        
+        List<Map<String, Object>> created = new ArrayList<>();
+        if (!itemIds.isEmpty()) {
+            Map<Long, Project> projects = new HashMap<>();
+            projectRepository.findAllById(orders.keySet()).forEach(project -> projects.put(project.getId(), project));
             
-            // Check if current user is superadmin - if so, auto-approve
-            if (isUserSuperAdmin(createdBy)) {
-                poRequest.setRequestStatus(PurchaseOrderRequest.RequestStatus.APPROVED);
-                poRequest.setApprovedBy(createdBy);
-                poRequest.setApprovalDate(LocalDateTime.now());
-                savedPO.setIsApproved(true);
-                purchaseOrderRepository.save(savedPO);
-                
-                // Update project stage to ORDER_STAGE for auto-approved PO
-                if (!"ORDER_STAGE".equals(project.getProjectStage())) {
-                    project.setProjectStage("ORDER_STAGE");
-                    projectRepository.save(project);
+            for (Map.Entry<Long, Map<String, Map<Long, int[]>>> projectOrders : orders.entrySet()) {
+                Project project = projects.get(projectOrders.getKey());
+                for (Map.Entry<String, Map<Long, int[]>> supplierOrder : projectOrders.getValue().entrySet()) {
+                    PurchaseOrder po = new PurchaseOrder();
+                    po.setPoNumber(generatePONumber(project.getId()));
+                    po.setProject(project);
+                    po.setSupplierName(supplierOrder.getKey());
+                    po.setPoStatus(PurchaseOrder.POStatus.CREATED);
+                    po.setCreatedBy(createdBy);
+                    po.setCreatedDate(LocalDateTime.now());
+                    
+                    List<PurchaseOrderItem> poItems = new ArrayList<>(supplierOrder.getValue().size());
+                    for (Map.Entry<Long, int[]> line : supplierOrder.getValue().entrySet()) {
+                        poItems.add(new PurchaseOrderItem(po, inventoryRepository.getReferenceById(line.getKey()),
+                                line.getValue()[0], unitPrices.get(line.getKey())));
+                    }
+                    PurchaseOrder savedPO = submitPurchaseOrder(po, poItems, createdBy);
+                    
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("purchaseOrderId", savedPO.getId());
+                    summary.put("poNumber", savedPO.getPoNumber());
+                    summary.put("projectId", project.getId());
+                    summary.put("supplierName", savedPO.getSupplierName());
+                    summary.put("lines", poItems.size());
+                    summary.put("totalAmount", savedPO.getTotalAmount());
+                    created.add(summary);
                 }
-                
-                // Check budget and send notification if below 50%
-                checkBudgetAndNotify(project);
-            } else {
-                // For non-superadmin users, notify all superadmins for approval
-                notificationService.notifyAllSuperAdminsForPOApproval(savedPO.getPoNumber(), createdBy);
             }
+            projectInventoryItemRepository.markPurchaseOrderCreated(itemIds);
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("shortageItems", itemIds.size());
+        result.put("purchaseOrders", created);
+        result.put("complete", shortages.size() < shortageSweepMaxItems);
+        return result;
+    }
+    
+    /**
+     * Inserts a new PO with its items and its approval request. A super admin's PO is approved on the spot;
+     * anyone else's is sent to the super admins for approval.
+     */
+    private PurchaseOrder submitPurchaseOrder(PurchaseOrder po, List<PurchaseOrderItem> poItems, String createdBy) {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (PurchaseOrderItem poItem : poItems) {
+            totalAmount = totalAmount.add(poItem.getTotalPrice());
+        }
+        po.setTotalAmount(totalAmount);
+        
+        // Auto-approve for superadmin, decided before the insert so the PO is written once
+        boolean autoApprove = isUserSuperAdmin(createdBy);
+        po.setIsApproved(autoApprove);
+        PurchaseOrder savedPO = purchaseOrderRepository.save(po);
+        
+        // Sequence ids let these go out as batched inserts at flush instead of one round trip per line
+        purchaseOrderItemRepository.saveAll(poItems);
+        
+        // Create approval request for the PO
+        PurchaseOrderRequest poRequest = new PurchaseOrderRequest(savedPO, createdBy);
+        if (autoApprove) {
+            poRequest.setRequestStatus(PurchaseOrderRequest.RequestStatus.APPROVED);
+            poRequest.setApprovedBy(createdBy);
+            poRequest.setApprovalDate(LocalDateTime.now());
             
-            purchaseOrderRequestRepository.save(poRequest);
+            // Update project stage to ORDER_STAGE for auto-approved PO
+            moveToOrderStage(savedPO.getProject());
             
-            return savedPO;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create PO from shortage: " + e.getMessage());
+            recordApprovedSpend(savedPO, 1);
+        } else {
+            // For non-superadmin users, notify all superadmins for approval
+            notificationService.notifyAllSuperAdminsForPOApproval(savedPO.getPoNumber(), createdBy);
+        }
+        
+        purchaseOrderRequestRepository.save(poRequest);
+        projectRollupService.recordPurchaseOrder(savedPO, 1);
+        
+        return savedPO;
+    }
+    
+    private void moveToOrderStage(Project project) {
+        if (!"ORDER_STAGE".equals(project.getProjectStage())) {
+            project.setProjectStage("ORDER_STAGE");
+            projectRepository.save(project);
+            // Breakdown reports show the stage for every date range
+            reportCacheService.invalidateInventory();
         }
     }
     
@@ -270,16 +353,14 @@ public class PurchaseOrderService {
         PurchaseOrder po = poRequest.getPurchaseOrder();
         po.setIsApproved(true);
         purchaseOrderRepository.save(po);
+        projectRollupService.recordPurchaseOrderApproval(po);
         
         // Update project stage to ORDER_STAGE
-        Project project = po.getProject();
-        if (!"ORDER_STAGE".equals(project.getProjectStage())) {
-            project.setProjectStage("ORDER_STAGE");
-            projectRepository.save(project);
-        }
+        moveToOrderStage(po.getProject());
         
-        // Check budget and send notification if below 50%
-        checkBudgetAndNotify(project);
+        if (po.getPoStatus() != PurchaseOrder.POStatus.CANCELLED) {
+            recordApprovedSpend(po, 1);
+        }
         
         return poRequest;
     }
@@ -314,37 +395,26 @@ public class PurchaseOrderService {
         return purchaseOrderRequestRepository.findByRequestStatus(PurchaseOrderRequest.RequestStatus.PENDING);
     }
     
-    private void checkBudgetAndNotify(Project project) {
-        BigDecimal projectBudget = project.getProjectBudget();
-        if (projectBudget != null && projectBudget.compareTo(BigDecimal.ZERO) > 0) {
-            // Calculate total spent on POs for this project
-            List<PurchaseOrder> approvedPOs = purchaseOrderRepository.findByProject_Id(project.getId())
-                    .stream()
-                    .filter(po -> Boolean.TRUE.equals(po.getIsApproved()))
-                    .toList();
-            
-            BigDecimal totalSpent = approvedPOs.stream()
-                    .map(PurchaseOrder::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            BigDecimal remainingBudget = projectBudget.subtract(totalSpent);
-            BigDecimal fiftyPercentBudget = projectBudget.multiply(new BigDecimal("0.5"));
-            
-            if (remainingBudget.compareTo(fiftyPercentBudget) <= 0) {
-                // Budget is at or below 50% - this would trigger a notification
-                // In a real system, this would send an email or push notification
-                // For now, we'll just log it
-                System.out.println("BUDGET ALERT: Project " + project.getId() + 
-                    " budget is below 50%. Remaining: " + remainingBudget + 
-                    " out of " + projectBudget);
-            }
-        }
+    /**
+     * Adds ({@code sign} 1) or removes (-1) the PO's total from the project's approved spend and raises a
+     * budget alert when that crosses one of the configured thresholds.
+     */
+    private void recordApprovedSpend(PurchaseOrder po, int sign) {
+        Project project = po.getProject();
+        BigDecimal amount = po.getTotalAmount() != null
+                ? po.getTotalAmount().multiply(BigDecimal.valueOf(sign)) : BigDecimal.ZERO;
+        projectCostCounterService.recordApprovedPurchaseOrderAmount(project.getId(), project.getProjectBudget(), amount)
+                .ifPresent(threshold -> notificationService.notifyBudgetThresholdReached(
+                        project.getId(), threshold, project.getProjectBudget()));
     }
     
     private boolean isUserSuperAdmin(String username) {
-        return userRepository.findByUsername(username)
-                .map(user -> user.getRoles().stream()
-                    .anyMatch(role -> "SUPER_ADMIN".equals(role.getName())))
-                .orElse(false);
+        // The caller's own authorities are already loaded; only look up someone else's roles
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && username != null && username.equals(authentication.getName())) {
+            return authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ROLE_SUPER_ADMIN".equals(authority.getAuthority()));
+        }
+        return userRepository.hasRole(username, "SUPER_ADMIN");
     }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package org.erp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of serialized report results keyed by report type and date range.
+ * Entries are evicted when a change touches their range, and each result carries an
+ * ETag derived from the data version it was computed at.
+ */
+@Service
+public class ReportCacheService {
+
+    public enum ReportType {
+        CASH_FLOW,
+        PROJECT_BREAKDOWN
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${erp.reports.cache.max-entries:200}")
+    private int maxEntries;
+
+    // Keeps ETags from a previous run from matching after a restart resets the version counter
+    private final String instanceId = Long.toHexString(System.currentTimeMillis());
+
+    // Bumped on every invalidation; a result is only cached if no invalidation ran while it was computed
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private final Map<CacheKey, CachedReport> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedReport> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public CachedReport getOrCompute(ReportType reportType, LocalDate startDate, LocalDate endDate, String variant,
+                                     Supplier<Object> loader) {
+        CacheKey key = new CacheKey(reportType, startDate, endDate, variant);
+        synchronized (entries) {
+            CachedReport cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long version = dataVersion.get();
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize report: " + e.getMessage(), e);
+        }
+
+        CachedReport computed = new CachedReport(body, "\"" + reportType.name().toLowerCase() + "-" + instanceId
+                + "-" + Integer.toHexString(key.hashCode()) + "-" + Long.toHexString(version) + "\"");
+        synchronized (entries) {
+            if (dataVersion.get() == version) {
+                entries.put(key, computed);
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * A cash flow, timesheet or purchase order dated {@code date} changed.
+     */
+    public void invalidateDate(LocalDate date) {
+        invalidate(key -> !date.isBefore(key.startDate) && !date.isAfter(key.endDate));
+    }
+
+    /**
+     * Project inventory items are not date-bound, so every breakdown report is affected.
+     */
+    public void invalidateInventory() {
+        invalidate(key -> key.reportType == ReportType.PROJECT_BREAKDOWN);
+    }
+
+    public void invalidateAll() {
+        invalidate(key -> true);
+    }
+
+    private void invalidate(Predicate<CacheKey> affected) {
+        evict(affected);
+        // Evict again once the change is visible, so a report computed from pre-commit data is not kept
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(affected);
+                }
+            });
+        }
+    }
+
+    private void evict(Predicate<CacheKey> affected) {
+        dataVersion.incrementAndGet();
+        synchronized (entries) {
+            entries.keySet().removeIf(affected);
+        }
+    }
+
+    public static class CachedReport {
+        private final byte[] body;
+        private final String eTag;
+
+        public CachedReport(byte[] body, String eTag) {
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        public byte[] getBody() { return body; }
+        public String getETag() { return eTag; }
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class CacheKey {
+        private final ReportType reportType;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final String variant;
+
+        private CacheKey(ReportType reportType, LocalDate startDate, LocalDate endDate, String variant) {
+            this.reportType = reportType;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return reportType == other.reportType && startDate.equals(other.startDate)
+                    && endDate.equals(other.endDate) && Objects.equals(variant, other.variant);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(reportType, startDate, endDate, variant);
+        }
+    }
+}
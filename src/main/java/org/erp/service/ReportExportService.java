@@ -0,0 +1,159 @@
+package org.erp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.erp.repository.CashFlowRepository;
+import org.erp.repository.TimesheetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAccessor;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes report rows straight from a database cursor to the response, one row at a time,
+ * so memory use does not grow with the date range.
+ */
+@Service
+public class ReportExportService {
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private static final List<String> CASH_FLOW_COLUMNS = List.of(
+            "id", "projectId", "projectDescription", "type", "amount", "transactionDate",
+            "category", "description", "referenceNumber", "createdBy");
+
+    private static final List<String> EMPLOYEE_HOURS_COLUMNS = List.of(
+            "timesheetId", "workDate", "employeeId", "empId", "employeeName", "projectId",
+            "projectDescription", "hoursWorked", "hourlyRate", "dailyRate", "totalAmount");
+
+    @Autowired
+    private CashFlowRepository cashFlowRepository;
+
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public enum ExportFormat {
+        CSV("csv", MediaType.parseMediaType("text/csv")),
+        NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        ExportFormat(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static ExportFormat fromParameter(String format) {
+            for (ExportFormat exportFormat : values()) {
+                if (exportFormat.extension.equalsIgnoreCase(format)) {
+                    return exportFormat;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeCashFlowExport(LocalDate startDate, LocalDate endDate, ExportFormat format,
+                                    OutputStream outputStream) throws IOException {
+        try (Stream<Object[]> rows = cashFlowRepository.streamExportRows(startDate, endDate)) {
+            writeRows(rows.iterator(), CASH_FLOW_COLUMNS, format, outputStream);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeEmployeeHoursExport(LocalDate startDate, LocalDate endDate, ExportFormat format,
+                                         OutputStream outputStream) throws IOException {
+        try (Stream<Object[]> rows = timesheetRepository.streamExportRows(startDate, endDate)) {
+            writeRows(rows.iterator(), EMPLOYEE_HOURS_COLUMNS, format, outputStream);
+        }
+    }
+
+    private void writeRows(Iterator<Object[]> rows, List<String> columns, ExportFormat format,
+                           OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writer.write(String.join(",", columns));
+            writer.write("\n");
+        }
+
+        int written = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            if (format == ExportFormat.CSV) {
+                writeCsvRow(writer, row);
+            } else {
+                writeJsonRow(writer, columns, row);
+            }
+
+            if (++written % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void writeCsvRow(Writer writer, Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(row[i]));
+        }
+        writer.write('\n');
+    }
+
+    private void writeJsonRow(Writer writer, List<String> columns, Object[] row) throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            values.put(columns.get(i), toJsonValue(row[i]));
+        }
+        writer.write(objectMapper.writeValueAsString(values));
+        writer.write('\n');
+    }
+
+    private Object toJsonValue(Object value) {
+        if (value instanceof TemporalAccessor || value instanceof Enum) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    private String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,293 @@
+package org.erp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.ReportJob;
+import org.erp.repository.ReportJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs reports in the background on a fixed-size pool with a bounded queue, so long
+ * reports do not tie up request threads. Results are written as JSON files and removed
+ * once their TTL has passed.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LogManager.getLogger(ReportJobService.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${erp.reports.jobs.threads:2}")
+    private int threads;
+
+    @Value("${erp.reports.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${erp.reports.jobs.max-per-user:2}")
+    private int maxJobsPerUser;
+
+    @Value("${erp.reports.jobs.result-ttl-minutes:1440}")
+    private long resultTtlMinutes;
+
+    @Value("${erp.reports.jobs.result-dir:reports/jobs}")
+    private String resultDir;
+
+    private ThreadPoolExecutor executor;
+
+    // Queued and running jobs per username
+    private final Map<String, Integer> activeJobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void startExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a report for {@code username}.
+     * Throws IllegalStateException when the user is at the concurrency cap or the queue is full.
+     */
+    public ReportJob submitJob(ReportJob.JobReportType reportType, LocalDate startDate, LocalDate endDate,
+                               String username) {
+        if (reportType == null) {
+            throw new IllegalArgumentException("Report type is required");
+        }
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must be on or before end date");
+        }
+
+        if (!acquireSlot(username)) {
+            throw new IllegalStateException("You already have " + maxJobsPerUser + " report jobs in progress");
+        }
+
+        ReportJob job = new ReportJob();
+        job.setReportType(reportType);
+        job.setStartDate(startDate);
+        job.setEndDate(endDate);
+        job.setRequestedBy(username);
+        try {
+            job = reportJobRepository.save(job);
+        } catch (RuntimeException e) {
+            releaseSlot(username);
+            throw e;
+        }
+
+        Long jobId = job.getId();
+        try {
+            executor.execute(() -> runJob(jobId, username));
+        } catch (RejectedExecutionException e) {
+            releaseSlot(username);
+            markFailed(job, "Report queue is full");
+            throw new IllegalStateException("Report queue is full, try again later");
+        }
+        return job;
+    }
+
+    public ReportJob getJob(Long jobId, String username) {
+        ReportJob job = reportJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Report job not found"));
+        if (!job.getRequestedBy().equals(username)) {
+            throw new RuntimeException("Report job not found");
+        }
+        return job;
+    }
+
+    public List<ReportJob> getJobsForUser(String username) {
+        return reportJobRepository.findByRequestedByOrderByCreatedAtDesc(username);
+    }
+
+    /**
+     * Returns the result file of a completed, unexpired job, or null if it is not available.
+     */
+    public Path getResultPath(ReportJob job) {
+        if (job.getStatus() != ReportJob.JobStatus.COMPLETED || job.getResultPath() == null
+                || (job.getExpiresAt() != null && job.getExpiresAt().isBefore(LocalDateTime.now()))) {
+            return null;
+        }
+        Path path = Paths.get(job.getResultPath());
+        return Files.exists(path) ? path : null;
+    }
+
+    private boolean acquireSlot(String username) {
+        AtomicBoolean acquired = new AtomicBoolean();
+        activeJobs.compute(username, (key, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= maxJobsPerUser) {
+                return count;
+            }
+            acquired.set(true);
+            return current + 1;
+        });
+        return acquired.get();
+    }
+
+    private void releaseSlot(String username) {
+        activeJobs.computeIfPresent(username, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void runJob(Long jobId, String username) {
+        ReportJob job = null;
+        try {
+            job = reportJobRepository.findById(jobId)
+                    .orElseThrow(() -> new RuntimeException("Report job not found"));
+            job.setStatus(ReportJob.JobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job = reportJobRepository.save(job);
+
+            Path resultPath = writeResult(job);
+
+            job.setStatus(ReportJob.JobStatus.COMPLETED);
+            job.setResultPath(resultPath.toString());
+            job.setResultSize(Files.size(resultPath));
+            job.setCompletedAt(LocalDateTime.now());
+            job.setExpiresAt(job.getCompletedAt().plusMinutes(resultTtlMinutes));
+            reportJobRepository.save(job);
+            logger.info("Report job {} ({}) completed in {} ms", jobId, job.getReportType(),
+                    Duration.between(job.getStartedAt(), job.getCompletedAt()).toMillis());
+        } catch (Exception e) {
+            logger.error("Report job {} failed", jobId, e);
+            if (job != null) {
+                markFailed(job, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        } finally {
+            releaseSlot(username);
+        }
+    }
+
+    private Path writeResult(ReportJob job) throws IOException {
+        Path directory = Paths.get(resultDir);
+        Files.createDirectories(directory);
+        Path target = directory.resolve("report-job-" + job.getId() + ".json");
+        Path partial = directory.resolve("report-job-" + job.getId() + ".json.part");
+
+        // Lazy associations in the report are serialized too, so keep one read-only
+        // transaction open for both the queries and the write
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (OutputStream outputStream = Files.newOutputStream(partial)) {
+                objectMapper.writeValue(outputStream, buildReport(job));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write report result: " + e.getMessage(), e);
+            }
+        });
+
+        return Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Map<String, Object> buildReport(ReportJob job) {
+        switch (job.getReportType()) {
+            case CASH_FLOW:
+                return reportService.getCashFlowReport(job.getStartDate(), job.getEndDate());
+            case EMPLOYEE_HOURS:
+                return reportService.getEmployeeHoursReport(job.getStartDate(), job.getEndDate());
+            case PROJECT_BREAKDOWN:
+                return reportService.getProjectBreakdownReport(job.getStartDate(), job.getEndDate());
+            default:
+                throw new IllegalArgumentException("Unsupported report type: " + job.getReportType());
+        }
+    }
+
+    private void markFailed(ReportJob job, String errorMessage) {
+        try {
+            job.setStatus(ReportJob.JobStatus.FAILED);
+            job.setErrorMessage(errorMessage.length() > MAX_ERROR_LENGTH
+                    ? errorMessage.substring(0, MAX_ERROR_LENGTH) : errorMessage);
+            job.setCompletedAt(LocalDateTime.now());
+            job.setExpiresAt(job.getCompletedAt().plusMinutes(resultTtlMinutes));
+            reportJobRepository.save(job);
+        } catch (Exception e) {
+            logger.error("Failed to record failure of report job {}", job.getId(), e);
+        }
+    }
+
+    /**
+     * Deletes jobs and result files whose TTL has passed.
+     */
+    @Scheduled(fixedDelayString = "${erp.reports.jobs.cleanup-interval-ms:600000}")
+    public void purgeExpiredJobs() {
+        List<ReportJob> expired = reportJobRepository.findByExpiresAtBefore(LocalDateTime.now());
+        for (ReportJob job : expired) {
+            if (job.getResultPath() != null) {
+                try {
+                    Files.deleteIfExists(Paths.get(job.getResultPath()));
+                } catch (IOException e) {
+                    logger.warn("Could not delete report result {}: {}", job.getResultPath(), e.getMessage());
+                    continue;
+                }
+            }
+            reportJobRepository.delete(job);
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Purged {} expired report jobs", expired.size());
+        }
+    }
+
+    /**
+     * Jobs that were queued or running when the application stopped will never finish.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer failed = transactionTemplate.execute(status -> reportJobRepository.failUnfinishedJobs(
+                "Interrupted by application restart", now, now.plusMinutes(resultTtlMinutes)));
+        if (failed != null && failed > 0) {
+            logger.warn("Marked {} interrupted report jobs as failed", failed);
+        }
+    }
+}
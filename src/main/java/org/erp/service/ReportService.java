@@ -6,11 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class ReportService {
@@ -29,40 +31,50 @@ public class ReportService {
     
     @Autowired
     private ProjectInventoryItemRepository projectInventoryItemRepository;
+    
+    @Autowired
+    private ProjectDailyRollupRepository projectDailyRollupRepository;
 
     public Map<String, Object> getCashFlowReport(LocalDate startDate, LocalDate endDate) {
+        return getCashFlowReport(startDate, endDate, true);
+    }
+
+    public Map<String, Object> getCashFlowReport(LocalDate startDate, LocalDate endDate, boolean includeTransactions) {
         Map<String, Object> report = new HashMap<>();
         
-        List<CashFlow> cashFlows = cashFlowRepository.findByTransactionDateBetween(startDate, endDate);
-        List<Map<String, Object>> projectSummaries = new ArrayList<>();
+        // Totals are grouped in the database; raw rows are only read when the caller wants them listed
+        Map<Long, BigDecimal[]> cashFlowTotals = getCashFlowTotals(startDate, endDate);
+        
+        Map<Long, Project> projects = new HashMap<>();
+        for (Project project : projectRepository.findAllById(cashFlowTotals.keySet())) {
+            projects.put(project.getId(), project);
+        }
         
         Map<Long, List<CashFlow>> projectCashFlows = new HashMap<>();
-        for (CashFlow cf : cashFlows) {
-            projectCashFlows.computeIfAbsent(cf.getProject().getId(), k -> new ArrayList<>()).add(cf);
+        if (includeTransactions) {
+            for (CashFlow cf : cashFlowRepository.findByTransactionDateBetween(startDate, endDate)) {
+                projectCashFlows.computeIfAbsent(cf.getProject().getId(), k -> new ArrayList<>()).add(cf);
+            }
         }
         
-        for (Map.Entry<Long, List<CashFlow>> entry : projectCashFlows.entrySet()) {
-            Project project = projectRepository.findById(entry.getKey()).orElse(null);
+        List<Map<String, Object>> projectSummaries = new ArrayList<>();
+        
+        for (Map.Entry<Long, BigDecimal[]> entry : cashFlowTotals.entrySet()) {
+            Project project = projects.get(entry.getKey());
             if (project != null) {
                 Map<String, Object> summary = new HashMap<>();
                 summary.put("projectId", project.getId());
                 summary.put("projectDescription", project.getProjectDescription());
                 
-                BigDecimal totalInflow = BigDecimal.ZERO;
-                BigDecimal totalOutflow = BigDecimal.ZERO;
-                
-                for (CashFlow cf : entry.getValue()) {
-                    if (cf.getType() == CashFlow.CashFlowType.INFLOW) {
-                        totalInflow = totalInflow.add(cf.getAmount());
-                    } else {
-                        totalOutflow = totalOutflow.add(cf.getAmount());
-                    }
-                }
+                BigDecimal totalInflow = entry.getValue()[0];
+                BigDecimal totalOutflow = entry.getValue()[1];
                 
                 summary.put("totalInflow", totalInflow);
                 summary.put("totalOutflow", totalOutflow);
                 summary.put("netCashFlow", totalInflow.subtract(totalOutflow));
-                summary.put("transactions", entry.getValue());
+                if (includeTransactions) {
+                    summary.put("transactions", projectCashFlows.getOrDefault(project.getId(), new ArrayList<>()));
+                }
                 
                 projectSummaries.add(summary);
             }
@@ -78,64 +90,53 @@ public class ReportService {
     public Map<String, Object> getEmployeeHoursReport(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> report = new HashMap<>();
         
-        List<Timesheet> timesheets = timesheetRepository.findByWorkDateBetween(startDate, endDate);
+        // Grouped per employee and project in the database; rows arrive ordered by employee
+        List<Object[]> rows = timesheetRepository.getEmployeeProjectHoursSummary(startDate, endDate);
         List<Map<String, Object>> employeeSummaries = new ArrayList<>();
         
-        Map<Long, List<Timesheet>> employeeTimesheets = new HashMap<>();
-        for (Timesheet ts : timesheets) {
-            employeeTimesheets.computeIfAbsent(ts.getEmployee().getId(), k -> new ArrayList<>()).add(ts);
-        }
+        Map<String, Object> employeeSummary = null;
+        List<Map<String, Object>> projectDetails = null;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal totalHours = BigDecimal.ZERO;
         
-        for (Map.Entry<Long, List<Timesheet>> entry : employeeTimesheets.entrySet()) {
-            Employee employee = entry.getValue().get(0).getEmployee();
-            
-            Map<Long, List<Timesheet>> projectTimesheets = new HashMap<>();
-            for (Timesheet ts : entry.getValue()) {
-                projectTimesheets.computeIfAbsent(ts.getProject().getId(), k -> new ArrayList<>()).add(ts);
-            }
-            
-            List<Map<String, Object>> projectDetails = new ArrayList<>();
-            BigDecimal totalAmount = BigDecimal.ZERO;
-            BigDecimal totalHours = BigDecimal.ZERO;
-            
-            for (Map.Entry<Long, List<Timesheet>> projectEntry : projectTimesheets.entrySet()) {
-                Project project = projectEntry.getValue().get(0).getProject();
-                Map<String, Object> projectDetail = new HashMap<>();
-                projectDetail.put("projectId", project.getId());
-                projectDetail.put("projectDescription", project.getProjectDescription());
-                
-                BigDecimal projectHours = BigDecimal.ZERO;
-                BigDecimal projectAmount = BigDecimal.ZERO;
-                BigDecimal dailyRate = BigDecimal.ZERO;
-                BigDecimal hourlyRate = BigDecimal.ZERO;
-                
-                for (Timesheet ts : projectEntry.getValue()) {
-                    projectHours = projectHours.add(ts.getHoursWorked());
-                    projectAmount = projectAmount.add(ts.getTotalAmount());
-                    dailyRate = ts.getDailyRate() != null ? ts.getDailyRate() : dailyRate;
-                    hourlyRate = ts.getHourlyRate() != null ? ts.getHourlyRate() : hourlyRate;
+        for (Object[] row : rows) {
+            Long employeeId = (Long) row[0];
+            if (employeeSummary == null || !employeeId.equals(employeeSummary.get("employeeId"))) {
+                if (employeeSummary != null) {
+                    employeeSummary.put("totalHours", totalHours);
+                    employeeSummary.put("totalAmount", totalAmount);
                 }
-                
-                projectDetail.put("hoursWorked", projectHours);
-                projectDetail.put("totalAmount", projectAmount);
-                projectDetail.put("dailyRate", dailyRate);
-                projectDetail.put("hourlyRate", hourlyRate);
-                projectDetail.put("daysWorked", projectHours.divide(BigDecimal.valueOf(8), 2, BigDecimal.ROUND_HALF_UP));
-                
-                projectDetails.add(projectDetail);
-                totalAmount = totalAmount.add(projectAmount);
-                totalHours = totalHours.add(projectHours);
+                employeeSummary = new HashMap<>();
+                employeeSummary.put("employeeId", employeeId);
+                employeeSummary.put("employeeName", row[1]);
+                employeeSummary.put("empId", row[2]);
+                projectDetails = new ArrayList<>();
+                employeeSummary.put("projectDetails", projectDetails);
+                employeeSummaries.add(employeeSummary);
+                totalAmount = BigDecimal.ZERO;
+                totalHours = BigDecimal.ZERO;
             }
             
-            Map<String, Object> employeeSummary = new HashMap<>();
-            employeeSummary.put("employeeId", employee.getId());
-            employeeSummary.put("employeeName", employee.getName());
-            employeeSummary.put("empId", employee.getEmpId());
+            BigDecimal projectHours = toBigDecimal(row[5]);
+            BigDecimal projectAmount = toBigDecimal(row[6]);
+            
+            Map<String, Object> projectDetail = new HashMap<>();
+            projectDetail.put("projectId", row[3]);
+            projectDetail.put("projectDescription", row[4]);
+            projectDetail.put("hoursWorked", projectHours);
+            projectDetail.put("totalAmount", projectAmount);
+            projectDetail.put("dailyRate", toBigDecimal(row[7]));
+            projectDetail.put("hourlyRate", toBigDecimal(row[8]));
+            projectDetail.put("daysWorked", projectHours.divide(BigDecimal.valueOf(8), 2, RoundingMode.HALF_UP));
+            
+            projectDetails.add(projectDetail);
+            totalAmount = totalAmount.add(projectAmount);
+            totalHours = totalHours.add(projectHours);
+        }
+        
+        if (employeeSummary != null) {
             employeeSummary.put("totalHours", totalHours);
             employeeSummary.put("totalAmount", totalAmount);
-            employeeSummary.put("projectDetails", projectDetails);
-            
-            employeeSummaries.add(employeeSummary);
         }
         
         report.put("employeeSummaries", employeeSummaries);
@@ -148,7 +149,22 @@ public class ReportService {
     public Map<String, Object> getProjectBreakdownReport(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> report = new HashMap<>();
         
+        // Every per-project figure comes from a grouped query (cash flows over cash_flow, the rest over
+        // the daily rollups), so the number of round trips stays the same no matter how many projects exist.
         List<Project> projects = projectRepository.findAll();
+        
+        Map<Long, BigDecimal[]> cashFlowTotals = getCashFlowTotals(startDate, endDate);
+        
+        Map<Long, Object[]> rollupSummaries = new HashMap<>();
+        for (Object[] row : projectDailyRollupRepository.getProjectSummary(startDate, endDate)) {
+            rollupSummaries.put((Long) row[0], row);
+        }
+        
+        Map<Long, Object[]> inventorySummaries = new HashMap<>();
+        for (Object[] row : projectInventoryItemRepository.getProjectInventorySummary()) {
+            inventorySummaries.put((Long) row[0], row);
+        }
+        
         List<Map<String, Object>> projectBreakdowns = new ArrayList<>();
         
         for (Project project : projects) {
@@ -159,52 +175,30 @@ public class ReportService {
             breakdown.put("projectStage", project.getProjectStage());
             breakdown.put("projectBudget", project.getProjectBudget());
             
-            List<CashFlow> cashFlows = cashFlowRepository.findByProjectIdAndDateRange(project.getId(), startDate, endDate);
-            BigDecimal totalInflow = BigDecimal.ZERO;
-            BigDecimal totalOutflow = BigDecimal.ZERO;
-            
-            for (CashFlow cf : cashFlows) {
-                if (cf.getType() == CashFlow.CashFlowType.INFLOW) {
-                    totalInflow = totalInflow.add(cf.getAmount());
-                } else {
-                    totalOutflow = totalOutflow.add(cf.getAmount());
-                }
-            }
+            BigDecimal[] cashFlowTotal = cashFlowTotals.get(project.getId());
+            BigDecimal totalInflow = cashFlowTotal != null ? cashFlowTotal[0] : BigDecimal.ZERO;
+            BigDecimal totalOutflow = cashFlowTotal != null ? cashFlowTotal[1] : BigDecimal.ZERO;
             
             breakdown.put("cashInflow", totalInflow);
             breakdown.put("cashOutflow", totalOutflow);
             breakdown.put("netCashFlow", totalInflow.subtract(totalOutflow));
             
-            List<ProjectInventoryItem> inventoryItems = projectInventoryItemRepository.findByProject(project);
-            BigDecimal totalInventoryValue = BigDecimal.ZERO;
-            int totalInventoryItems = 0;
-            
-            for (ProjectInventoryItem item : inventoryItems) {
-                totalInventoryValue = totalInventoryValue.add(item.getTotalPrice() != null ? item.getTotalPrice() : BigDecimal.ZERO);
-                totalInventoryItems += item.getAllocatedQuantity() != null ? item.getAllocatedQuantity() : 0;
-            }
+            Object[] inventorySummary = inventorySummaries.get(project.getId());
+            BigDecimal totalInventoryValue = inventorySummary != null ? toBigDecimal(inventorySummary[1]) : BigDecimal.ZERO;
+            int totalInventoryItems = inventorySummary != null ? toInt(inventorySummary[2]) : 0;
             
             breakdown.put("totalInventoryItems", totalInventoryItems);
             breakdown.put("totalInventoryValue", totalInventoryValue);
             
-            List<PurchaseOrder> purchaseOrders = purchaseOrderRepository.findByProjectAndCreatedDateBetween(project, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
-            BigDecimal totalPOValue = BigDecimal.ZERO;
-            
-            for (PurchaseOrder po : purchaseOrders) {
-                totalPOValue = totalPOValue.add(po.getTotalAmount() != null ? po.getTotalAmount() : BigDecimal.ZERO);
-            }
+            Object[] rollupSummary = rollupSummaries.get(project.getId());
+            int purchaseOrderCount = rollupSummary != null ? toInt(rollupSummary[1]) : 0;
+            BigDecimal totalPOValue = rollupSummary != null ? toBigDecimal(rollupSummary[2]) : BigDecimal.ZERO;
             
-            breakdown.put("purchaseOrderCount", purchaseOrders.size());
+            breakdown.put("purchaseOrderCount", purchaseOrderCount);
             breakdown.put("totalPOValue", totalPOValue);
             
-            List<Timesheet> timesheets = timesheetRepository.findByProjectAndWorkDateBetween(project, startDate, endDate);
-            BigDecimal laborCost = BigDecimal.ZERO;
-            BigDecimal totalHours = BigDecimal.ZERO;
-            
-            for (Timesheet ts : timesheets) {
-                laborCost = laborCost.add(ts.getTotalAmount() != null ? ts.getTotalAmount() : BigDecimal.ZERO);
-                totalHours = totalHours.add(ts.getHoursWorked() != null ? ts.getHoursWorked() : BigDecimal.ZERO);
-            }
+            BigDecimal laborCost = rollupSummary != null ? toBigDecimal(rollupSummary[3]) : BigDecimal.ZERO;
+            BigDecimal totalHours = rollupSummary != null ? toBigDecimal(rollupSummary[4]) : BigDecimal.ZERO;
             
             breakdown.put("laborCost", laborCost);
             breakdown.put("totalLaborHours", totalHours);
@@ -222,4 +216,29 @@ public class ReportService {
         
         return report;
     }
-}
\ No newline at end of file
+    
+    // Inflow and outflow per project id, ordered by project id
+    private Map<Long, BigDecimal[]> getCashFlowTotals(LocalDate startDate, LocalDate endDate) {
+        Map<Long, BigDecimal[]> totals = new TreeMap<>();
+        for (Object[] row : cashFlowRepository.getProjectCashFlowSummary(startDate, endDate)) {
+            BigDecimal[] total = totals.computeIfAbsent((Long) row[0], k -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+            int index = row[1] == CashFlow.CashFlowType.INFLOW ? 0 : 1;
+            total[index] = total[index].add(toBigDecimal(row[2]));
+        }
+        return totals;
+    }
+    
+    private BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+    
+    private int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+}
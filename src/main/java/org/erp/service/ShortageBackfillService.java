@@ -0,0 +1,103 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.ProjectInventoryItem;
+import org.erp.entity.StockMovement;
+import org.erp.repository.InventoryRepository;
+import org.erp.repository.ProjectInventoryItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills outstanding project shortages when an inventory item's stock goes up. Shortages of the item
+ * are served first come, first served (by project inventory item id) through a partial index on open
+ * shortages, so only that item's queue is read. Runs inside the transaction that raised the stock, which
+ * already holds the inventory row lock; shortages that already have a PO are left to the PO.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class ShortageBackfillService {
+
+    private static final Logger logger = LogManager.getLogger(ShortageBackfillService.class);
+
+    private static final int PAGE_SIZE = 100;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProjectInventoryItemRepository projectInventoryItemRepository;
+
+    @Autowired
+    private ProjectCostCounterService projectCostCounterService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    /**
+     * Moves on-hand stock of {@code inventoryId} into open shortages; returns the quantity allocated.
+     */
+    public int backfill(Long inventoryId) {
+        Integer onHand = inventoryRepository.findQuantityById(inventoryId);
+        int available = onHand == null ? 0 : onHand;
+        if (available <= 0) {
+            return 0;
+        }
+
+        int allocatedTotal = 0;
+        Map<Long, BigDecimal> costByProject = new LinkedHashMap<>();
+        List<StockMovement> movements = new ArrayList<>();
+        long afterId = 0L;
+        while (available > 0) {
+            List<ProjectInventoryItem> shortages =
+                    projectInventoryItemRepository.findOpenShortagesByInventoryForUpdate(inventoryId, afterId, PAGE_SIZE);
+            for (ProjectInventoryItem item : shortages) {
+                if (available == 0) {
+                    break;
+                }
+                int filled = Math.min(available, item.getShortageQuantity());
+                BigDecimal cost = item.getUnitPrice().multiply(BigDecimal.valueOf(filled));
+                item.setAllocatedQuantity(item.getAllocatedQuantity() + filled);
+                item.setShortageQuantity(item.getShortageQuantity() - filled);
+                item.setTotalPrice(item.getTotalPrice().add(cost));
+
+                Long projectId = item.getProject().getId();
+                costByProject.merge(projectId, cost, BigDecimal::add);
+                movements.add(new StockMovement(inventoryId, -filled, StockMovement.Reason.ALLOCATION, projectId));
+                available -= filled;
+                allocatedTotal += filled;
+            }
+            if (shortages.size() < PAGE_SIZE) {
+                break;
+            }
+            afterId = shortages.get(shortages.size() - 1).getId();
+        }
+        if (allocatedTotal == 0) {
+            return 0;
+        }
+
+        // The row lock is held by the caller, so this cannot lose a race
+        if (inventoryRepository.decrementQuantity(inventoryId, allocatedTotal) != 1) {
+            throw new IllegalStateException("Stock of inventory " + inventoryId + " changed during shortage backfill");
+        }
+        stockLedgerService.recordAll(movements);
+        costByProject.forEach((projectId, cost) -> projectCostCounterService.recordInventoryCost(projectId, cost));
+        reportCacheService.invalidateInventory();
+
+        logger.info("Backfilled {} units of inventory {} into shortages of {} projects",
+                allocatedTotal, inventoryId, costByProject.size());
+        return allocatedTotal;
+    }
+}
@@ -0,0 +1,139 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.StockMovement;
+import org.erp.entity.StockSnapshot;
+import org.erp.repository.StockMovementRepository;
+import org.erp.repository.StockSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Append-only ledger of stock movements. Every change to {@code Inventory.quantity} records its delta
+ * here in the same transaction. A scheduled job rolls the movements up into {@link StockSnapshot}s, so a
+ * point-in-time query starts from the nearest snapshot and only replays the movements after it.
+ */
+@Service
+@Transactional
+public class StockLedgerService {
+
+    private static final Logger logger = LogManager.getLogger(StockLedgerService.class);
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (inventory_item_id, quantity_delta, reason, reference_id, occurred_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Movements younger than this are left to the next snapshot, so transactions still in flight are not skipped
+    @Value("${erp.inventory.ledger.snapshot-lag-seconds:300}")
+    private long snapshotLagSeconds;
+
+    public void record(Long inventoryItemId, int quantityDelta, StockMovement.Reason reason, Long referenceId) {
+        if (quantityDelta != 0) {
+            stockMovementRepository.save(new StockMovement(inventoryItemId, quantityDelta, reason, referenceId));
+        }
+    }
+
+    /**
+     * Records many movements as one JDBC batch; zero deltas are skipped.
+     */
+    public void recordAll(Collection<StockMovement> movements) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new ArrayList<>(movements.size());
+        for (StockMovement movement : movements) {
+            if (movement.getQuantityDelta() != 0) {
+                batchArgs.add(new Object[] {movement.getInventoryItemId(), movement.getQuantityDelta(),
+                        movement.getReason().name(), movement.getReferenceId(), now});
+            }
+        }
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, batchArgs);
+        }
+    }
+
+    /**
+     * On-hand quantity of one inventory item at {@code at}; zero before it existed or after it was deleted.
+     */
+    @Transactional(readOnly = true)
+    public int quantityAt(Long inventoryItemId, LocalDateTime at) {
+        Optional<StockSnapshot> snapshot = stockSnapshotRepository.findLatestForItemAt(inventoryItemId, at);
+        int base = snapshot.map(StockSnapshot::getQuantity).orElse(0);
+        long afterId = snapshot.map(StockSnapshot::getLastMovementId).orElse(0L);
+        return base + stockMovementRepository.sumDeltasAfter(inventoryItemId, afterId, at).intValue();
+    }
+
+    /**
+     * On-hand quantity per inventory item id at {@code at}, for every item with stock at that time.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> stockAt(LocalDateTime at) {
+        Long snapshotMovementId = stockSnapshotRepository.findLatestMovementIdAt(at);
+        long afterId = snapshotMovementId == null ? 0L : snapshotMovementId;
+
+        Map<Long, Integer> stock = new TreeMap<>();
+        if (snapshotMovementId != null) {
+            for (Object[] row : stockSnapshotRepository.findQuantitiesAsOf(snapshotMovementId)) {
+                stock.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        }
+        for (Object[] row : stockMovementRepository.sumDeltasByItemAfter(afterId, at)) {
+            stock.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+        }
+        stock.values().removeIf(quantity -> quantity == 0);
+        return stock;
+    }
+
+    /**
+     * Snapshots every item that moved since the previous run; returns the number of items snapshotted.
+     */
+    @Scheduled(fixedDelayString = "${erp.inventory.ledger.snapshot-interval-ms:86400000}",
+               initialDelayString = "${erp.inventory.ledger.snapshot-initial-delay-ms:900000}")
+    public int snapshot() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(snapshotLagSeconds);
+        Long previous = stockSnapshotRepository.findLatestMovementId();
+        long afterId = previous == null ? 0L : previous;
+        Long throughId = stockMovementRepository.findMaxIdBefore(cutoff);
+        if (throughId == null || throughId <= afterId) {
+            return 0;
+        }
+
+        int items = stockSnapshotRepository.insertSnapshots(cutoff, afterId, throughId);
+        logger.info("Stock snapshot at {} covers movements up to {} for {} items", cutoff, throughId, items);
+        return items;
+    }
+
+    /**
+     * Starts the ledger from the current quantities the first time it runs against an existing database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapIfEmpty() {
+        if (stockMovementRepository.count() == 0) {
+            int items = stockMovementRepository.insertOpeningBalances();
+            logger.info("Recorded opening stock balances for {} inventory items", items);
+        }
+    }
+}
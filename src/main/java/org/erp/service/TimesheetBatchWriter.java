@@ -0,0 +1,201 @@
+package org.erp.service;
+
+import org.erp.entity.Project;
+import org.erp.repository.EmployeeRepository;
+import org.erp.repository.TimesheetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Writes many timesheet cells for one project with a single batched
+ * {@code INSERT ... ON CONFLICT (project_id, employee_id, work_date) DO UPDATE}.
+ * Rates are resolved once from the project, existing cells are read in one query so the
+ * rollups, cost counters, report cache and snapshot get the same deltas {@link ProjectService#saveTimesheet} produces.
+ */
+@Service
+@Transactional
+public class TimesheetBatchWriter {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO timesheets (project_id, employee_id, work_date, hours_worked, hourly_rate, daily_rate, total_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (project_id, employee_id, work_date) DO UPDATE SET " +
+            "hours_worked = EXCLUDED.hours_worked, hourly_rate = EXCLUDED.hourly_rate, " +
+            "daily_rate = EXCLUDED.daily_rate, total_amount = EXCLUDED.total_amount";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ProjectRollupService projectRollupService;
+
+    @Autowired
+    private TimesheetSnapshotService timesheetSnapshotService;
+
+    @Autowired
+    private ProjectCostCounterService projectCostCounterService;
+
+    @Value("${erp.timesheets.batch-size:500}")
+    private int batchSize;
+
+    public static class TimesheetEntry {
+        private final Long employeeId;
+        private final LocalDate workDate;
+        private final BigDecimal hoursWorked;
+
+        public TimesheetEntry(Long employeeId, LocalDate workDate, BigDecimal hoursWorked) {
+            this.employeeId = employeeId;
+            this.workDate = workDate;
+            this.hoursWorked = hoursWorked;
+        }
+
+        public Long getEmployeeId() { return employeeId; }
+        public LocalDate getWorkDate() { return workDate; }
+        public BigDecimal getHoursWorked() { return hoursWorked; }
+    }
+
+    /**
+     * Upserts the entries for {@code project}; when the same employee and date appear more than
+     * once the last entry wins. Employees must already be validated by the caller.
+     * Returns the number of cells written.
+     */
+    public int write(Project project, List<TimesheetEntry> entries) {
+        Map<CellKey, TimesheetEntry> cells = new LinkedHashMap<>();
+        for (TimesheetEntry entry : entries) {
+            cells.put(new CellKey(entry.getEmployeeId(), entry.getWorkDate()), entry);
+        }
+        if (cells.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> employeeIds = cells.keySet().stream().map(key -> key.employeeId).collect(Collectors.toSet());
+        LocalDate startDate = cells.keySet().stream().map(key -> key.workDate).min(LocalDate::compareTo).get();
+        LocalDate endDate = cells.keySet().stream().map(key -> key.workDate).max(LocalDate::compareTo).get();
+
+        Map<CellKey, BigDecimal[]> previous = new HashMap<>();
+        for (Object[] row : timesheetRepository.findGridCells(project.getId(), employeeIds, startDate, endDate)) {
+            previous.put(new CellKey((Long) row[1], (LocalDate) row[2]),
+                    new BigDecimal[] {(BigDecimal) row[3], (BigDecimal) row[4]});
+        }
+
+        BigDecimal hourlyRate = project.getPerHourRate();
+        BigDecimal dailyRate = project.getPerDayRate();
+        List<Object[]> batchArgs = new ArrayList<>(cells.size());
+        Map<LocalDate, BigDecimal[]> laborDeltas = new TreeMap<>();
+        Map<Long, BigDecimal[]> employeeDeltas = new TreeMap<>();
+
+        for (Map.Entry<CellKey, TimesheetEntry> cell : cells.entrySet()) {
+            BigDecimal hours = cell.getValue().getHoursWorked();
+            BigDecimal amount = ProjectService.calculateTotalAmount(hours, hourlyRate, dailyRate);
+            batchArgs.add(new Object[] {project.getId(), cell.getKey().employeeId, Date.valueOf(cell.getKey().workDate),
+                    hours, hourlyRate, dailyRate, amount});
+
+            BigDecimal[] before = previous.get(cell.getKey());
+            BigDecimal[] delta = laborDeltas.computeIfAbsent(cell.getKey().workDate,
+                    date -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+            delta[0] = delta[0].add(money(hours)).subtract(before != null ? money(before[0]) : BigDecimal.ZERO);
+            delta[1] = delta[1].add(money(amount)).subtract(before != null ? money(before[1]) : BigDecimal.ZERO);
+
+            // hours, cost, new timesheet count
+            BigDecimal[] employeeDelta = employeeDeltas.computeIfAbsent(cell.getKey().employeeId,
+                    id -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+            employeeDelta[0] = employeeDelta[0].add(money(hours)).subtract(before != null ? money(before[0]) : BigDecimal.ZERO);
+            employeeDelta[1] = employeeDelta[1].add(money(amount)).subtract(before != null ? money(before[1]) : BigDecimal.ZERO);
+            if (before == null) {
+                employeeDelta[2] = employeeDelta[2].add(BigDecimal.ONE);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batchArgs, batchSize, (statement, args) -> {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+        });
+
+        for (Map.Entry<LocalDate, BigDecimal[]> delta : laborDeltas.entrySet()) {
+            projectRollupService.recordLabor(project.getId(), delta.getKey(), delta.getValue()[0], delta.getValue()[1]);
+        }
+        for (Map.Entry<Long, BigDecimal[]> delta : employeeDeltas.entrySet()) {
+            projectCostCounterService.recordLabor(project.getId(), delta.getKey(), delta.getValue()[0],
+                    delta.getValue()[1], delta.getValue()[2].intValue());
+        }
+
+        if (timesheetSnapshotService.isEnabled()) {
+            // Batched inserts do not return keys, so read back the ids of the written cells
+            for (Object[] row : timesheetRepository.findGridCells(project.getId(), employeeIds, startDate, endDate)) {
+                CellKey key = new CellKey((Long) row[1], (LocalDate) row[2]);
+                if (cells.containsKey(key)) {
+                    timesheetSnapshotService.recordTimesheet((Long) row[0], key.employeeId, project.getId(),
+                            key.workDate, (BigDecimal) row[3], (BigDecimal) row[4]);
+                }
+            }
+        }
+
+        return cells.size();
+    }
+
+    /**
+     * Employee ids from {@code employeeIds} that do not exist.
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> findUnknownEmployees(Collection<Long> employeeIds) {
+        if (employeeIds.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> known = new HashSet<>(employeeRepository.findExistingIds(employeeIds));
+        return employeeIds.stream().filter(id -> !known.contains(id)).collect(Collectors.toSet());
+    }
+
+    // numeric(.., 2) columns round half up when the value is stored
+    private BigDecimal money(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+
+    private static final class CellKey {
+        private final Long employeeId;
+        private final LocalDate workDate;
+
+        private CellKey(Long employeeId, LocalDate workDate) {
+            this.employeeId = employeeId;
+            this.workDate = workDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CellKey)) return false;
+            CellKey other = (CellKey) o;
+            return employeeId.equals(other.employeeId) && workDate.equals(other.workDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(employeeId, workDate);
+        }
+    }
+}
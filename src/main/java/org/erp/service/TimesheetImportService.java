@@ -0,0 +1,327 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.entity.Project;
+import org.erp.repository.EmployeeRepository;
+import org.erp.repository.ProjectRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Imports timesheet rows from a CSV upload. The file is read line by line and valid rows are
+ * written through {@link TimesheetBatchWriter} every {@code erp.timesheets.import.batch-size} rows,
+ * one transaction per batch, so memory stays bounded by the batch and the capped error list.
+ *
+ * <p>The header names the columns: {@code projectId} (optional when a project is given for the whole
+ * file), {@code employeeId} or {@code empId}, {@code workDate} (yyyy-MM-dd) and {@code hoursWorked}.
+ */
+@Service
+public class TimesheetImportService {
+
+    private static final Logger logger = LogManager.getLogger(TimesheetImportService.class);
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private TimesheetBatchWriter timesheetBatchWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${erp.timesheets.import.batch-size:2000}")
+    private int batchSize;
+
+    @Value("${erp.timesheets.import.max-errors:1000}")
+    private int maxErrors;
+
+    public Map<String, Object> importCsv(InputStream input, Long defaultProjectId) throws IOException {
+        ImportRun run = new ImportRun(defaultProjectId);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            int lineNumber = 1;
+            if (line == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            run.readHeader(splitCsvLine(line.startsWith("\uFEFF") ? line.substring(1) : line));
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                run.readRow(lineNumber, splitCsvLine(line));
+                if (run.pendingRows >= batchSize) {
+                    run.flush();
+                }
+            }
+            run.flush();
+        }
+
+        logger.info("Timesheet import finished: {} rows read, {} imported, {} failed",
+                run.rowsRead, run.imported, run.failed);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("rowsRead", run.rowsRead);
+        result.put("imported", run.imported);
+        result.put("failed", run.failed);
+        result.put("errors", run.errors);
+        result.put("errorsTruncated", run.failed > run.errors.size());
+        return result;
+    }
+
+    /**
+     * State of one import: column positions, lookups cached for the whole file and the pending batch.
+     */
+    private final class ImportRun {
+        private final Long defaultProjectId;
+        private final LocalDate today = LocalDate.now();
+        private final Map<Long, Optional<Project>> projects = new HashMap<>();
+        private Map<Long, String> employeeIds;
+        private Map<String, Long> employeeIdsByEmpId;
+
+        private int projectColumn = -1;
+        private int employeeIdColumn = -1;
+        private int empIdColumn = -1;
+        private int workDateColumn = -1;
+        private int hoursColumn = -1;
+
+        // Entries per project and the file line of each entry, in file order
+        private final Map<Long, List<TimesheetBatchWriter.TimesheetEntry>> pending = new LinkedHashMap<>();
+        private final Map<Long, List<Integer>> pendingLines = new HashMap<>();
+        private int pendingRows;
+
+        private int rowsRead;
+        private int imported;
+        private int failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        private ImportRun(Long defaultProjectId) {
+            this.defaultProjectId = defaultProjectId;
+        }
+
+        private void readHeader(List<String> header) {
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "")) {
+                    case "projectid":
+                        projectColumn = i;
+                        break;
+                    case "employeeid":
+                        employeeIdColumn = i;
+                        break;
+                    case "empid":
+                        empIdColumn = i;
+                        break;
+                    case "workdate":
+                    case "date":
+                        workDateColumn = i;
+                        break;
+                    case "hoursworked":
+                    case "hours":
+                        hoursColumn = i;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (projectColumn < 0 && defaultProjectId == null) {
+                throw new IllegalArgumentException("Missing projectId column");
+            }
+            if (employeeIdColumn < 0 && empIdColumn < 0) {
+                throw new IllegalArgumentException("Missing employeeId or empId column");
+            }
+            if (workDateColumn < 0 || hoursColumn < 0) {
+                throw new IllegalArgumentException("Missing workDate or hoursWorked column");
+            }
+        }
+
+        private void readRow(int lineNumber, List<String> values) {
+            rowsRead++;
+
+            Long projectId;
+            String projectValue = column(values, projectColumn);
+            try {
+                projectId = projectValue.isEmpty() ? defaultProjectId : Long.valueOf(projectValue);
+            } catch (NumberFormatException e) {
+                reject(lineNumber, "Invalid projectId: " + projectValue);
+                return;
+            }
+            if (projectId == null) {
+                reject(lineNumber, "Project is required");
+                return;
+            }
+            Project project = projects.computeIfAbsent(projectId, id -> projectRepository.findById(id)).orElse(null);
+            if (project == null) {
+                reject(lineNumber, "Project not found: " + projectId);
+                return;
+            }
+
+            Long employeeId = resolveEmployee(lineNumber, values);
+            if (employeeId == null) {
+                return;
+            }
+
+            LocalDate workDate;
+            try {
+                workDate = LocalDate.parse(column(values, workDateColumn));
+            } catch (DateTimeParseException e) {
+                reject(lineNumber, "Invalid workDate: " + column(values, workDateColumn));
+                return;
+            }
+            if (!ProjectService.isTimesheetEditable(project, workDate, today)) {
+                reject(lineNumber, "Work date " + workDate + " is outside the project dates or in the future");
+                return;
+            }
+
+            BigDecimal hours;
+            try {
+                hours = new BigDecimal(column(values, hoursColumn));
+            } catch (NumberFormatException e) {
+                reject(lineNumber, "Invalid hoursWorked: " + column(values, hoursColumn));
+                return;
+            }
+            if (hours.signum() < 0 || hours.compareTo(ProjectService.MAX_HOURS_PER_DAY) > 0) {
+                reject(lineNumber, "Hours worked must be between 0 and " + ProjectService.MAX_HOURS_PER_DAY);
+                return;
+            }
+
+            pending.computeIfAbsent(projectId, id -> new ArrayList<>())
+                    .add(new TimesheetBatchWriter.TimesheetEntry(employeeId, workDate, hours));
+            pendingLines.computeIfAbsent(projectId, id -> new ArrayList<>()).add(lineNumber);
+            pendingRows++;
+        }
+
+        private Long resolveEmployee(int lineNumber, List<String> values) {
+            if (employeeIds == null) {
+                employeeIds = new HashMap<>();
+                employeeIdsByEmpId = new HashMap<>();
+                for (Object[] row : employeeRepository.findAllIdsAndEmpIds()) {
+                    employeeIds.put((Long) row[0], (String) row[1]);
+                    if (row[1] != null) {
+                        employeeIdsByEmpId.put((String) row[1], (Long) row[0]);
+                    }
+                }
+            }
+
+            String idValue = column(values, employeeIdColumn);
+            if (!idValue.isEmpty()) {
+                try {
+                    Long employeeId = Long.valueOf(idValue);
+                    if (employeeIds.containsKey(employeeId)) {
+                        return employeeId;
+                    }
+                } catch (NumberFormatException e) {
+                    reject(lineNumber, "Invalid employeeId: " + idValue);
+                    return null;
+                }
+                reject(lineNumber, "Employee not found: " + idValue);
+                return null;
+            }
+
+            String empId = column(values, empIdColumn);
+            if (empId.isEmpty()) {
+                reject(lineNumber, "Employee is required");
+                return null;
+            }
+            Long employeeId = employeeIdsByEmpId.get(empId);
+            if (employeeId == null) {
+                reject(lineNumber, "Employee not found: " + empId);
+            }
+            return employeeId;
+        }
+
+        private void flush() {
+            if (pendingRows == 0) {
+                return;
+            }
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    for (Map.Entry<Long, List<TimesheetBatchWriter.TimesheetEntry>> batch : pending.entrySet()) {
+                        timesheetBatchWriter.write(projects.get(batch.getKey()).get(), batch.getValue());
+                    }
+                });
+                imported += pendingRows;
+            } catch (Exception e) {
+                logger.error("Timesheet import batch failed", e);
+                for (List<Integer> lines : pendingLines.values()) {
+                    for (Integer line : lines) {
+                        reject(line, "Batch could not be saved: " + e.getMessage());
+                    }
+                }
+            }
+            pending.clear();
+            pendingLines.clear();
+            pendingRows = 0;
+        }
+
+        private void reject(int lineNumber, String error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                Map<String, Object> rejection = new HashMap<>();
+                rejection.put("line", lineNumber);
+                rejection.put("error", error);
+                errors.add(rejection);
+            }
+        }
+    }
+
+    private static String column(List<String> values, int index) {
+        return index >= 0 && index < values.size() ? values.get(index).trim() : "";
+    }
+
+    /**
+     * Splits one CSV line; quoted fields may contain commas and doubled quotes, but not line breaks.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
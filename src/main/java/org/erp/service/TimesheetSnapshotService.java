@@ -0,0 +1,428 @@
+package org.erp.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.erp.repository.TimesheetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory copy of the timesheet table held as primitive columns (employee, project,
+ * epoch day, hours in hundredths, amount in cents), for hours and labor-cost pivots that do not
+ * touch the database. Loaded at startup when {@code erp.timesheets.snapshot.enabled} is set and
+ * kept current from {@link ProjectService#saveTimesheet} after each commit.
+ */
+@Service
+public class TimesheetSnapshotService {
+
+    private static final Logger logger = LogManager.getLogger(TimesheetSnapshotService.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    public enum Dimension {
+        EMPLOYEE("employeeId"),
+        PROJECT("projectId"),
+        DAY("day"),
+        WEEK("weekStart"),
+        MONTH("month");
+
+        private final String column;
+
+        Dimension(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public static Dimension fromParameter(String value) {
+            for (Dimension dimension : values()) {
+                if (dimension.name().equalsIgnoreCase(value.trim())) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported group by: " + value);
+        }
+    }
+
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${erp.timesheets.snapshot.enabled:false}")
+    private boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Columns columns = new Columns(INITIAL_CAPACITY);
+
+    private boolean loaded;
+
+    // Changes committed while a reload is streaming the table; replayed onto the new columns
+    private List<Object[]> pendingChanges;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot from the timesheets table; returns the number of rows loaded.
+     */
+    public synchronized int reload() {
+        if (!enabled) {
+            throw new IllegalStateException("Timesheet snapshot is disabled");
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.currentTimeMillis();
+        Columns fresh = new Columns(INITIAL_CAPACITY);
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = timesheetRepository.streamSnapshotRows()) {
+                    rows.forEach(row -> fresh.upsert((Long) row[0], (Long) row[1], (Long) row[2],
+                            (LocalDate) row[3], (BigDecimal) row[4], (BigDecimal) row[5]));
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] change : pendingChanges) {
+                if (change.length == 1) {
+                    fresh.removeProject((Long) change[0]);
+                } else {
+                    fresh.upsert((Long) change[0], (Long) change[1], (Long) change[2],
+                            (LocalDate) change[3], (BigDecimal) change[4], (BigDecimal) change[5]);
+                }
+            }
+            pendingChanges = null;
+            columns = fresh;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Loaded timesheet snapshot: {} rows in {} ms", fresh.size, System.currentTimeMillis() - started);
+        return fresh.size;
+    }
+
+    /**
+     * Applies a saved timesheet once the surrounding transaction commits.
+     */
+    public void recordTimesheet(Long timesheetId, Long employeeId, Long projectId, LocalDate workDate,
+                                BigDecimal hoursWorked, BigDecimal totalAmount) {
+        if (enabled) {
+            afterCommit(new Object[] {timesheetId, employeeId, projectId, workDate, hoursWorked, totalAmount});
+        }
+    }
+
+    /**
+     * Drops a deleted project's timesheets once the surrounding transaction commits.
+     */
+    public void removeProject(Long projectId) {
+        if (enabled) {
+            afterCommit(new Object[] {projectId});
+        }
+    }
+
+    private void afterCommit(Object[] change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Object[] change) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            if (change.length == 1) {
+                columns.removeProject((Long) change[0]);
+            } else {
+                columns.upsert((Long) change[0], (Long) change[1], (Long) change[2],
+                        (LocalDate) change[3], (BigDecimal) change[4], (BigDecimal) change[5]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sums hours and amount over the rows matching the filters, grouped by {@code groupBy}
+     * (no dimensions gives a single total row). Null filters match everything.
+     * Rows are ordered by their group values.
+     */
+    public List<Map<String, Object>> pivot(List<Dimension> groupBy, Long projectId, Long employeeId,
+                                           LocalDate startDate, LocalDate endDate) {
+        if (!enabled) {
+            throw new IllegalStateException("Timesheet snapshot is disabled");
+        }
+
+        Dimension[] dimensions = groupBy.stream().distinct().toArray(Dimension[]::new);
+        long fromDay = startDate != null ? startDate.toEpochDay() : Long.MIN_VALUE;
+        long toDay = endDate != null ? endDate.toEpochDay() : Long.MAX_VALUE;
+        boolean filterProject = projectId != null;
+        long projectFilter = filterProject ? projectId : 0L;
+        boolean filterEmployee = employeeId != null;
+        long employeeFilter = filterEmployee ? employeeId : 0L;
+
+        Map<GroupKey, long[]> groups = new HashMap<>();
+        GroupKey probe = new GroupKey(new long[dimensions.length]);
+
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                throw new IllegalStateException("Timesheet snapshot is still loading");
+            }
+            Columns data = columns;
+            for (int i = 0; i < data.size; i++) {
+                if ((filterProject && data.projectIds[i] != projectFilter)
+                        || (filterEmployee && data.employeeIds[i] != employeeFilter)
+                        || data.epochDays[i] < fromDay || data.epochDays[i] > toDay) {
+                    continue;
+                }
+
+                for (int d = 0; d < dimensions.length; d++) {
+                    probe.values[d] = dimensionValue(dimensions[d], data, i);
+                }
+                probe.rehash();
+
+                long[] totals = groups.get(probe);
+                if (totals == null) {
+                    totals = new long[3];
+                    groups.put(probe.copy(), totals);
+                }
+                totals[0] += data.centiHours[i];
+                totals[1] += data.amountCents[i];
+                totals[2]++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<GroupKey, long[]>> entries = new ArrayList<>(groups.entrySet());
+        entries.sort((a, b) -> Arrays.compare(a.getKey().values, b.getKey().values));
+
+        List<Map<String, Object>> rows = new ArrayList<>(entries.size());
+        for (Map.Entry<GroupKey, long[]> entry : entries) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int d = 0; d < dimensions.length; d++) {
+                row.put(dimensions[d].getColumn(), formatDimension(dimensions[d], entry.getKey().values[d]));
+            }
+            long[] totals = entry.getValue();
+            row.put("hoursWorked", BigDecimal.valueOf(totals[0], 2));
+            row.put("totalAmount", BigDecimal.valueOf(totals[1], 2));
+            row.put("entries", totals[2]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long dimensionValue(Dimension dimension, Columns data, int row) {
+        switch (dimension) {
+            case EMPLOYEE:
+                return data.employeeIds[row];
+            case PROJECT:
+                return data.projectIds[row];
+            case DAY:
+                return data.epochDays[row];
+            case WEEK:
+                // 1970-01-01 was a Thursday; step back to the Monday of the ISO week
+                return data.epochDays[row] - Math.floorMod(data.epochDays[row] + 3, 7);
+            case MONTH:
+                LocalDate date = LocalDate.ofEpochDay(data.epochDays[row]);
+                return date.getYear() * 12L + date.getMonthValue() - 1;
+            default:
+                throw new IllegalArgumentException("Unsupported dimension: " + dimension);
+        }
+    }
+
+    private Object formatDimension(Dimension dimension, long value) {
+        switch (dimension) {
+            case DAY:
+            case WEEK:
+                return LocalDate.ofEpochDay(value).toString();
+            case MONTH:
+                return String.format("%04d-%02d", Math.floorDiv(value, 12), Math.floorMod(value, 12) + 1);
+            default:
+                return value;
+        }
+    }
+
+    private static long toHundredths(BigDecimal value) {
+        // Same rounding PostgreSQL applies when storing into numeric(.., 2)
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+    }
+
+    /**
+     * Growable parallel arrays, one slot per timesheet row.
+     */
+    private static final class Columns {
+        private long[] timesheetIds;
+        private long[] employeeIds;
+        private long[] projectIds;
+        private int[] epochDays;
+        private long[] centiHours;
+        private long[] amountCents;
+        private int size;
+        private final Map<Long, Integer> rowByTimesheetId = new HashMap<>();
+
+        private Columns(int capacity) {
+            timesheetIds = new long[capacity];
+            employeeIds = new long[capacity];
+            projectIds = new long[capacity];
+            epochDays = new int[capacity];
+            centiHours = new long[capacity];
+            amountCents = new long[capacity];
+        }
+
+        private void upsert(Long timesheetId, Long employeeId, Long projectId, LocalDate workDate,
+                            BigDecimal hoursWorked, BigDecimal totalAmount) {
+            Integer row = rowByTimesheetId.get(timesheetId);
+            if (row == null) {
+                if (size == timesheetIds.length) {
+                    grow();
+                }
+                row = size++;
+                rowByTimesheetId.put(timesheetId, row);
+            }
+            timesheetIds[row] = timesheetId;
+            employeeIds[row] = employeeId;
+            projectIds[row] = projectId;
+            epochDays[row] = (int) workDate.toEpochDay();
+            centiHours[row] = toHundredths(hoursWorked);
+            amountCents[row] = toHundredths(totalAmount);
+        }
+
+        private void removeProject(long projectId) {
+            int row = 0;
+            while (row < size) {
+                if (projectIds[row] == projectId) {
+                    removeRow(row);
+                } else {
+                    row++;
+                }
+            }
+        }
+
+        // Moves the last row into the gap so the columns stay dense
+        private void removeRow(int row) {
+            rowByTimesheetId.remove(timesheetIds[row]);
+            int last = --size;
+            if (row != last) {
+                timesheetIds[row] = timesheetIds[last];
+                employeeIds[row] = employeeIds[last];
+                projectIds[row] = projectIds[last];
+                epochDays[row] = epochDays[last];
+                centiHours[row] = centiHours[last];
+                amountCents[row] = amountCents[last];
+                rowByTimesheetId.put(timesheetIds[row], row);
+            }
+        }
+
+        private void grow() {
+            int capacity = timesheetIds.length * 2;
+            timesheetIds = Arrays.copyOf(timesheetIds, capacity);
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            projectIds = Arrays.copyOf(projectIds, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            centiHours = Arrays.copyOf(centiHours, capacity);
+            amountCents = Arrays.copyOf(amountCents, capacity);
+        }
+    }
+
+    /**
+     * Group values for one pivot row. The probe instance is refilled per row and only copied
+     * when a new group is found.
+     */
+    private static final class GroupKey {
+        private final long[] values;
+        private int hash;
+
+        private GroupKey(long[] values) {
+            this.values = values;
+            rehash();
+        }
+
+        private void rehash() {
+            hash = Arrays.hashCode(values);
+        }
+
+        private GroupKey copy() {
+            return new GroupKey(values.clone());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GroupKey && Arrays.equals(values, ((GroupKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}